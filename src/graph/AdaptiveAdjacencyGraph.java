@@ -0,0 +1,149 @@
+package graph;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A Graph whose adjacency lists adapt to vertex degree.
+ * 
+ * <p>Word graphs have a power-law degree distribution: most vertices have a
+ * handful of edges and a few hubs have thousands. Each adjacency list here
+ * starts as a pair of small parallel arrays, scanned linearly, and is promoted
+ * to a hash map only once its degree passes {@link Adjacency#PROMOTE_ABOVE};
+ * it is demoted back to arrays when the degree falls to
+ * {@link Adjacency#DEMOTE_AT}. The long tail of low-degree vertices thus pays
+ * for two compact arrays instead of a hash table each.
+ * 
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class AdaptiveAdjacencyGraph<L> implements Graph<L> {
+    
+    private final Map<L, Node<L>> nodes = new HashMap<>();
+    
+    // Abstraction function:
+    //   Represents the graph whose vertices are the keys of nodes, with an
+    //   edge s -> t of weight w iff nodes.get(s).out.get(t) == w.
+    // Representation invariant:
+    //   - nodes.get(s).out.get(t) == nodes.get(t).in.get(s) for all s, t; in
+    //     particular every neighbor in an adjacency list is a key of nodes.
+    //   - Every stored weight is positive.
+    // Safety from rep exposure:
+    //   - nodes is private and final; observers return fresh sets and maps.
+    
+    private static final class Node<L> {
+        final Adjacency<L> out = new Adjacency<>();
+        final Adjacency<L> in = new Adjacency<>();
+    }
+    
+    /**
+     * Create an empty graph.
+     */
+    public AdaptiveAdjacencyGraph() {
+        checkRep();
+    }
+    
+    // Checks the invariant around one vertex, so each operation costs O(degree).
+    private void checkRep(L vertex) {
+        Node<L> node = nodes.get(vertex);
+        if (node == null) return;
+        node.out.forEach((target, weight) -> {
+            assert weight > 0;
+            assert nodes.get(target).in.get(vertex) == weight;
+        });
+        node.in.forEach((source, weight) -> {
+            assert nodes.get(source).out.get(vertex) == weight;
+        });
+    }
+    
+    private void checkRep() {
+        assert nodes != null;
+    }
+    
+    private Node<L> node(L vertex) {
+        Node<L> node = nodes.get(vertex);
+        if (node == null) {
+            node = new Node<>();
+            nodes.put(SymbolTable.intern(vertex), node);
+        }
+        return node;
+    }
+    
+    @Override
+    public boolean add(L vertex) {
+        if (nodes.containsKey(vertex)) return false;
+        nodes.put(SymbolTable.intern(vertex), new Node<>());
+        checkRep(vertex);
+        return true;
+    }
+    
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight must be non-negative.");
+        
+        Node<L> sourceNode = nodes.get(source);
+        if (weight == 0) {
+            if (sourceNode == null) return 0;
+            int previous = sourceNode.out.remove(target);
+            if (previous > 0) {
+                nodes.get(target).in.remove(source);
+            }
+            checkRep(source);
+            return previous;
+        }
+        
+        source = SymbolTable.intern(source);
+        target = SymbolTable.intern(target);
+        sourceNode = node(source);
+        int previous = sourceNode.out.put(target, weight);
+        node(target).in.put(source, weight);
+        checkRep(source);
+        return previous;
+    }
+    
+    @Override
+    public boolean remove(L vertex) {
+        Node<L> node = nodes.remove(vertex);
+        if (node == null) return false;
+        
+        node.out.forEach((target, weight) -> {
+            Node<L> targetNode = nodes.get(target);
+            if (targetNode != null) targetNode.in.remove(vertex);
+        });
+        node.in.forEach((source, weight) -> {
+            Node<L> sourceNode = nodes.get(source);
+            if (sourceNode != null) sourceNode.out.remove(vertex);
+        });
+        checkRep();
+        return true;
+    }
+    
+    @Override
+    public Set<L> vertices() {
+        return new HashSet<>(nodes.keySet());
+    }
+    
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Node<L> node = nodes.get(target);
+        return node == null ? new HashMap<>() : node.in.toMap();
+    }
+    
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Node<L> node = nodes.get(source);
+        return node == null ? new HashMap<>() : node.out.toMap();
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<L, Node<L>> entry : nodes.entrySet()) {
+            entry.getValue().out.forEach((target, weight) ->
+                    sb.append("(").append(entry.getKey()).append(" -> ").append(target)
+                      .append(", ").append(weight).append(")\n"));
+        }
+        return sb.toString().strip();
+    }
+}
@@ -0,0 +1,199 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A mutable map from neighbor labels to positive edge weights that switches
+ * representation with its size: parallel arrays while small, a HashMap once
+ * large. This class is internal to the representation of
+ * AdaptiveAdjacencyGraph.
+ */
+class Adjacency<L> {
+    
+    /** Size above which the arrays are replaced by a hash map. */
+    static final int PROMOTE_ABOVE = 16;
+    /** Size at which a hash map goes back to arrays. */
+    static final int DEMOTE_AT = PROMOTE_ABOVE / 2;
+    
+    private static final Object[] NO_KEYS = new Object[0];
+    private static final int[] NO_WEIGHTS = new int[0];
+    
+    private Object[] keys = NO_KEYS;
+    private int[] weights = NO_WEIGHTS;
+    private int size = 0;
+    private Map<L, Integer> hashed = null;
+    
+    // Abstraction function:
+    //   If hashed is null, represents { keys[i] -> weights[i] | 0 <= i < size };
+    //   otherwise represents hashed.
+    // Representation invariant:
+    //   - If hashed is null: size <= PROMOTE_ABOVE, keys.length ==
+    //     weights.length >= size, and keys[0..size-1] are distinct labels.
+    //   - If hashed is non-null: hashed.size() > DEMOTE_AT, keys == NO_KEYS,
+    //     and size == 0.
+    //   - Every weight is positive.
+    // Safety from rep exposure:
+    //   - All fields are private; toMap() returns a fresh map.
+    
+    Adjacency() {
+        checkRep();
+    }
+    
+    private void checkRep() {
+        if (hashed == null) {
+            assert size <= PROMOTE_ABOVE;
+            assert keys.length == weights.length && keys.length >= size;
+        } else {
+            assert hashed.size() > DEMOTE_AT;
+            assert size == 0;
+        }
+    }
+    
+    /**
+     * @return true iff this list is currently stored as a hash map
+     */
+    boolean isHashed() {
+        return hashed != null;
+    }
+    
+    /**
+     * @return the number of neighbors
+     */
+    int size() {
+        return hashed == null ? size : hashed.size();
+    }
+    
+    private int indexOf(Object key) {
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) return i;
+        }
+        return -1;
+    }
+    
+    /**
+     * @param key a label
+     * @return the weight to key, or 0 if key is not a neighbor
+     */
+    int get(Object key) {
+        if (hashed != null) return hashed.getOrDefault(key, 0);
+        int i = indexOf(key);
+        return i < 0 ? 0 : weights[i];
+    }
+    
+    /**
+     * @param key a label
+     * @param weight positive weight
+     * @return the previous weight to key, or 0 if key was not a neighbor
+     */
+    int put(L key, int weight) {
+        assert weight > 0;
+        if (hashed != null) {
+            Integer previous = hashed.put(key, weight);
+            return previous == null ? 0 : previous;
+        }
+        int i = indexOf(key);
+        if (i >= 0) {
+            int previous = weights[i];
+            weights[i] = weight;
+            return previous;
+        }
+        if (size == PROMOTE_ABOVE) {
+            promote();
+            hashed.put(key, weight);
+            checkRep();
+            return 0;
+        }
+        if (size == keys.length) {
+            int capacity = Math.min(Math.max(2, size * 2), PROMOTE_ABOVE);
+            keys = Arrays.copyOf(keys, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+        }
+        keys[size] = key;
+        weights[size] = weight;
+        size++;
+        return 0;
+    }
+    
+    /**
+     * @param key a label
+     * @return the previous weight to key, or 0 if key was not a neighbor
+     */
+    int remove(Object key) {
+        if (hashed != null) {
+            Integer previous = hashed.remove(key);
+            if (previous == null) return 0;
+            if (hashed.size() <= DEMOTE_AT) {
+                demote();
+            }
+            return previous;
+        }
+        int i = indexOf(key);
+        if (i < 0) return 0;
+        int previous = weights[i];
+        size--;
+        keys[i] = keys[size];
+        weights[i] = weights[size];
+        keys[size] = null;
+        if (size == 0) {
+            keys = NO_KEYS;
+            weights = NO_WEIGHTS;
+        }
+        return previous;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void promote() {
+        hashed = new HashMap<>(PROMOTE_ABOVE * 4);
+        for (int i = 0; i < size; i++) {
+            hashed.put((L) keys[i], weights[i]);
+        }
+        keys = NO_KEYS;
+        weights = NO_WEIGHTS;
+        size = 0;
+    }
+    
+    private void demote() {
+        keys = new Object[PROMOTE_ABOVE];
+        weights = new int[PROMOTE_ABOVE];
+        for (Map.Entry<L, Integer> entry : hashed.entrySet()) {
+            keys[size] = entry.getKey();
+            weights[size] = entry.getValue();
+            size++;
+        }
+        hashed = null;
+        checkRep();
+    }
+    
+    /**
+     * Apply an action to every neighbor and its weight.
+     * 
+     * @param action action to apply; must not modify this list
+     */
+    @SuppressWarnings("unchecked")
+    void forEach(ObjIntConsumer<L> action) {
+        if (hashed != null) {
+            hashed.forEach((key, weight) -> action.accept(key, weight));
+        } else {
+            for (int i = 0; i < size; i++) {
+                action.accept((L) keys[i], weights[i]);
+            }
+        }
+    }
+    
+    /**
+     * @return a new map from each neighbor to its weight
+     */
+    Map<L, Integer> toMap() {
+        Map<L, Integer> map = new HashMap<>((int) (size() / 0.75f) + 1);
+        forEach(map::put);
+        return map;
+    }
+    
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
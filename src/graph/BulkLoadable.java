@@ -0,0 +1,29 @@
+package graph;
+
+import java.util.Map;
+
+/**
+ * A Graph implementation that can take a whole batch of edges in one pass,
+ * instead of one {@link Graph#set(Object, Object, int) set} call per edge.
+ * Used by {@link GraphBuilder}; graphs that do not implement it are loaded
+ * edge by edge.
+ * 
+ * @param <L> type of vertex labels in the graph, must be immutable
+ */
+public interface BulkLoadable<L> extends Graph<L> {
+    
+    /**
+     * Add a batch of edges to this graph.
+     * For every source -> target -> weight in adjacency, the edge weight
+     * becomes the existing weight plus weight (SUM) or weight itself
+     * (OVERWRITE); an edge whose resulting weight is zero is removed.
+     * Vertices are added only for edges with a nonzero resulting weight.
+     * 
+     * @param adjacency edges grouped by source; weights are nonnegative and no
+     *        source -> target pair appears twice
+     * @param duplicates how an edge that already exists is combined with the
+     *        batch
+     */
+    public void load(Map<L, Map<L, Integer>> adjacency, GraphBuilder.Duplicates duplicates);
+    
+}
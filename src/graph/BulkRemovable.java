@@ -0,0 +1,23 @@
+package graph;
+
+import java.util.Collection;
+
+/**
+ * A Graph implementation that can remove many vertices in one pass over its
+ * representation, instead of one pass per {@link Graph#remove(Object) remove}.
+ * 
+ * @param <L> type of vertex labels in the graph, must be immutable
+ */
+public interface BulkRemovable<L> extends Graph<L> {
+    
+    /**
+     * Remove vertices from this graph; any edges to or from them are also
+     * removed.
+     * 
+     * @param vertices labels of the vertices to remove
+     * @return true if this graph included a vertex with any of the given
+     *         labels; otherwise false (and this graph is not modified)
+     */
+    public boolean removeAll(Collection<? extends L> vertices);
+    
+}
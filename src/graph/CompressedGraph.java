@@ -0,0 +1,445 @@
+package graph;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A Graph that keeps rarely touched adjacency lists compressed in memory.
+ * 
+ * <p>Vertices are numbered with int IDs. Each vertex has an out-row and an
+ * in-row of (neighbor ID, weight) pairs sorted by ID. A cold row is stored as
+ * a byte array of delta-encoded neighbor IDs and weights in variable-length
+ * (varint) form, typically a few bytes per edge. Touching a row decompresses
+ * it into a hot {@link Row}; the most recently used hot rows are kept in an
+ * LRU of bounded size, and a row evicted from it is compressed again.
+ * 
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class CompressedGraph<L> implements Graph<L> {
+    
+    private static final int DEFAULT_HOT_ROWS = 1024;
+    
+    private final Map<L, Integer> ids = new HashMap<>();
+    private final List<L> labels = new ArrayList<>();
+    private final List<Integer> freeIds = new ArrayList<>();
+    private Object[] rows = new Object[16];
+    private final LinkedHashMap<Integer, Row> hot;
+    
+    // Abstraction function:
+    //   Represents the graph whose vertices are the keys of ids, with an edge
+    //   s -> t of weight w iff the out-row of ids.get(s) holds (ids.get(t), w).
+    //   The out-row of vertex v is rows[2v] and its in-row rows[2v + 1]; a row
+    //   is null (empty), a byte[] (compressed), or a Row (decompressed).
+    // Representation invariant:
+    //   - ids and labels are inverse on live IDs; labels.get(id) is null
+    //     exactly for the IDs in freeIds, whose rows are null.
+    //   - (t, w) is in the out-row of s iff (s, w) is in the in-row of t, and
+    //     every weight is positive.
+    //   - A row slot holds a Row iff it is a key of hot, mapped to that Row;
+    //     hot has at most hotCapacity entries.
+    // Safety from rep exposure:
+    //   - All fields are private; observers return fresh sets and maps.
+    
+    private final int hotCapacity;
+    
+    /**
+     * Create an empty graph that keeps up to 1024 rows decompressed.
+     */
+    public CompressedGraph() {
+        this(DEFAULT_HOT_ROWS);
+    }
+    
+    /**
+     * Create an empty graph.
+     * 
+     * @param hotRows how many adjacency rows to keep decompressed, at least 1
+     */
+    public CompressedGraph(int hotRows) {
+        if (hotRows < 1) throw new IllegalArgumentException("Hot row count must be positive.");
+        this.hotCapacity = hotRows;
+        this.hot = new LinkedHashMap<Integer, Row>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Row> eldest) {
+                if (size() <= hotCapacity) return false;
+                Row row = eldest.getValue();
+                rows[eldest.getKey()] = row.size == 0 ? null : row.encode();
+                return true;
+            }
+        };
+        checkRep();
+    }
+    
+    private void checkRep() {
+        assert ids.size() + freeIds.size() == labels.size();
+        assert hot.size() <= hotCapacity;
+        assert rows.length >= 2 * labels.size();
+    }
+    
+    /**
+     * @return the number of rows currently decompressed
+     */
+    int hotRowCount() {
+        return hot.size();
+    }
+    
+    // Returns the decompressed row in a slot, making it most recently used.
+    private Row row(int slot) {
+        Row row = hot.get(slot);
+        if (row == null) {
+            Object stored = rows[slot];
+            row = stored == null ? new Row() : Row.decode((byte[]) stored);
+            rows[slot] = row;
+            hot.put(slot, row);
+        }
+        return row;
+    }
+    
+    // Returns a row for reading only, without decompressing an empty one.
+    private Row peek(int slot) {
+        return rows[slot] == null ? null : row(slot);
+    }
+    
+    private int id(L vertex) {
+        Integer id = ids.get(vertex);
+        if (id != null) return id;
+        vertex = SymbolTable.intern(vertex);
+        int newId;
+        if (freeIds.isEmpty()) {
+            newId = labels.size();
+            labels.add(vertex);
+            if (rows.length < 2 * labels.size()) {
+                rows = Arrays.copyOf(rows, rows.length * 2);
+            }
+        } else {
+            newId = freeIds.remove(freeIds.size() - 1);
+            labels.set(newId, vertex);
+        }
+        ids.put(vertex, newId);
+        return newId;
+    }
+    
+    @Override
+    public boolean add(L vertex) {
+        if (ids.containsKey(vertex)) return false;
+        id(vertex);
+        checkRep();
+        return true;
+    }
+    
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight must be non-negative.");
+        
+        if (weight == 0) {
+            Integer s = ids.get(source);
+            Integer t = ids.get(target);
+            if (s == null || t == null || rows[2 * s] == null) return 0;
+            int previous = row(2 * s).remove(t);
+            if (previous > 0) {
+                row(2 * t + 1).remove(s);
+            }
+            return previous;
+        }
+        
+        int s = id(source);
+        int t = id(target);
+        int previous = row(2 * s).put(t, weight);
+        row(2 * t + 1).put(s, weight);
+        checkRep();
+        return previous;
+    }
+    
+    @Override
+    public boolean remove(L vertex) {
+        Integer id = ids.remove(vertex);
+        if (id == null) return false;
+        
+        Row out = peek(2 * id);
+        if (out != null) {
+            for (int k = 0; k < out.size; k++) {
+                if (out.ids[k] != id) row(2 * out.ids[k] + 1).remove(id);
+            }
+        }
+        Row in = peek(2 * id + 1);
+        if (in != null) {
+            for (int k = 0; k < in.size; k++) {
+                if (in.ids[k] != id) row(2 * in.ids[k]).remove(id);
+            }
+        }
+        hot.remove(2 * id);
+        hot.remove(2 * id + 1);
+        rows[2 * id] = null;
+        rows[2 * id + 1] = null;
+        labels.set(id, null);
+        freeIds.add(id);
+        checkRep();
+        return true;
+    }
+    
+    @Override
+    public Set<L> vertices() {
+        return new HashSet<>(ids.keySet());
+    }
+    
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Integer id = ids.get(target);
+        return id == null ? new HashMap<>() : toMap(peek(2 * id + 1));
+    }
+    
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Integer id = ids.get(source);
+        return id == null ? new HashMap<>() : toMap(peek(2 * id));
+    }
+    
+    private Map<L, Integer> toMap(Row row) {
+        Map<L, Integer> map = new HashMap<>();
+        if (row == null) return map;
+        for (int k = 0; k < row.size; k++) {
+            map.put(labels.get(row.ids[k]), row.weights[k]);
+        }
+        return map;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<L, Integer> vertex : ids.entrySet()) {
+            toMap(peek(2 * vertex.getValue())).forEach((target, weight) ->
+                    sb.append("(").append(vertex.getKey()).append(" -> ").append(target)
+                      .append(", ").append(weight).append(")\n"));
+        }
+        return sb.toString().strip();
+    }
+    
+    /**
+     * A mutable, decompressed adjacency row of neighbor IDs with their
+     * positive weights. This class is internal to the representation of
+     * CompressedGraph, which also stores rows in the compressed form produced
+     * by {@link #encode()}.
+     * 
+     * <p>New IDs are appended to an unsorted tail, found through a small hash
+     * table, and the row is sorted only once the tail outgrows the sorted
+     * part (or before a removal), so filling a row of degree d in any order
+     * costs O(d log d) rather than O(d^2) shifting.
+     */
+    static final class Row {
+        
+        // the tail may grow to this size however short the sorted part is
+        private static final int MIN_TAIL = 8;
+        private static final int[] NO_SLOTS = new int[0];
+        
+        int[] ids;
+        int[] weights;
+        int size;
+        private int sorted;
+        private int[] tailSlots = NO_SLOTS;
+        
+        // Abstraction function:
+        //   Represents { ids[k] -> weights[k] | 0 <= k < size }.
+        // Representation invariant:
+        //   - ids.length == weights.length >= size, and 0 <= sorted <= size.
+        //   - ids[0..size-1] are nonnegative and distinct, ids[0..sorted-1]
+        //     are strictly increasing, and weights are positive.
+        //   - tailSlots is an open-addressing table, of power-of-two length
+        //     at least twice size - sorted, holding k + 1 at some slot for
+        //     each tail position sorted <= k < size, and 0 in other slots.
+        // Safety from rep exposure:
+        //   - ids, weights and size are package-private for CompressedGraph's
+        //     loops only, which read them in no particular order; the class
+        //     is not visible outside the package.
+        
+        Row() {
+            this(new int[4], new int[4], 0);
+        }
+        
+        private Row(int[] ids, int[] weights, int size) {
+            this.ids = ids;
+            this.weights = weights;
+            this.size = size;
+            this.sorted = size;
+            checkRep();
+        }
+        
+        private void checkRep() {
+            assert ids.length == weights.length && ids.length >= size;
+            assert 0 <= sorted && sorted <= size;
+            assert tailSlots.length >= 2 * (size - sorted);
+        }
+        
+        // Returns the position of id, or -1 if it is not in the row.
+        private int find(int id) {
+            int k = Arrays.binarySearch(ids, 0, sorted, id);
+            if (k >= 0) return k;
+            if (sorted == size) return -1;
+            int mask = tailSlots.length - 1;
+            for (int h = hash(id) & mask; tailSlots[h] != 0; h = (h + 1) & mask) {
+                if (ids[tailSlots[h] - 1] == id) return tailSlots[h] - 1;
+            }
+            return -1;
+        }
+        
+        private static int hash(int id) {
+            int h = id * 0x9e3779b9;
+            return h ^ h >>> 16;
+        }
+        
+        // Records tail position k in tailSlots, growing the table if needed.
+        private void indexTail(int k) {
+            if (tailSlots.length < 2 * (size - sorted)) {
+                tailSlots = new int[Integer.highestOneBit(4 * (size - sorted))];
+                for (int j = sorted; j < k; j++) {
+                    slot(j);
+                }
+            }
+            slot(k);
+        }
+        
+        private void slot(int k) {
+            int mask = tailSlots.length - 1;
+            int h = hash(ids[k]) & mask;
+            while (tailSlots[h] != 0) {
+                h = (h + 1) & mask;
+            }
+            tailSlots[h] = k + 1;
+        }
+        
+        /**
+         * @param id neighbor ID
+         * @param weight positive weight
+         * @return the previous weight for id, or 0 if none
+         */
+        int put(int id, int weight) {
+            int k = find(id);
+            if (k >= 0) {
+                int previous = weights[k];
+                weights[k] = weight;
+                return previous;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            ids[size] = id;
+            weights[size] = weight;
+            size++;
+            if (size - sorted > Math.max(MIN_TAIL, sorted)) {
+                sort();
+            } else {
+                indexTail(size - 1);
+            }
+            return 0;
+        }
+        
+        /**
+         * @param id neighbor ID
+         * @return the previous weight for id, or 0 if none
+         */
+        int remove(int id) {
+            sort();
+            int k = Arrays.binarySearch(ids, 0, size, id);
+            if (k < 0) return 0;
+            int previous = weights[k];
+            System.arraycopy(ids, k + 1, ids, k, size - k - 1);
+            System.arraycopy(weights, k + 1, weights, k, size - k - 1);
+            size--;
+            sorted = size;
+            return previous;
+        }
+        
+        // The entries as id << 32 | weight, in increasing order of ID.
+        private long[] sortedEntries() {
+            long[] entries = new long[size];
+            for (int k = 0; k < size; k++) {
+                entries[k] = (long) ids[k] << 32 | weights[k];
+            }
+            if (sorted < size) Arrays.sort(entries);
+            return entries;
+        }
+        
+        // Sorts the tail into the rest of the row and empties the tail table.
+        private void sort() {
+            if (sorted == size) return;
+            long[] entries = sortedEntries();
+            for (int k = 0; k < size; k++) {
+                ids[k] = (int) (entries[k] >>> 32);
+                weights[k] = (int) entries[k];
+            }
+            sorted = size;
+            tailSlots = NO_SLOTS;
+        }
+        
+        /**
+         * @return this row as varints: the size, then for each entry in
+         *         increasing order of ID the gap from the previous ID (the
+         *         first ID itself) and the weight; the row is not changed
+         */
+        byte[] encode() {
+            long[] entries = sortedEntries();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(2 + 3 * size);
+            writeVarint(bytes, size);
+            int previous = 0;
+            for (long entry : entries) {
+                int id = (int) (entry >>> 32);
+                writeVarint(bytes, id - previous);
+                writeVarint(bytes, (int) entry);
+                previous = id;
+            }
+            return bytes.toByteArray();
+        }
+        
+        /**
+         * @param bytes a row produced by encode()
+         * @return the decoded row
+         */
+        static Row decode(byte[] bytes) {
+            int[] position = {0};
+            int size = readVarint(bytes, position);
+            int[] ids = new int[Math.max(size, 4)];
+            int[] weights = new int[Math.max(size, 4)];
+            int previous = 0;
+            for (int k = 0; k < size; k++) {
+                previous += readVarint(bytes, position);
+                ids[k] = previous;
+                weights[k] = readVarint(bytes, position);
+            }
+            return new Row(ids, weights, size);
+        }
+        
+        // Writes a nonnegative int in 7-bit groups, low group first.
+        private static void writeVarint(ByteArrayOutputStream bytes, int value) {
+            while ((value & ~0x7f) != 0) {
+                bytes.write((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes.write(value);
+        }
+        
+        private static int readVarint(byte[] bytes, int[] position) {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[position[0]++];
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) return value;
+            }
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("[");
+            for (int k = 0; k < size; k++) {
+                if (k > 0) sb.append(", ");
+                sb.append(ids[k]).append('=').append(weights[k]);
+            }
+            return sb.append(']').toString();
+        }
+    }
+}
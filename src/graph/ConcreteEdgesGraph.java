@@ -1,23 +1,34 @@
 package graph;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-public class ConcreteEdgesGraph implements Graph<String> {
+public class ConcreteEdgesGraph implements BulkLoadable<String>, BulkRemovable<String> {
     
     private final Set<String> vertices = new HashSet<>();
     private final List<Edge> edges = new ArrayList<>();
+    private final Map<String, Map<String, Integer>> positions = new HashMap<>();
+    private final Map<String, Set<String>> sourcesOf = new HashMap<>();
+    private int removedEdges = 0;
     
     // Abstraction function:
     //   Represents a directed, weighted graph where `vertices` is the set of all nodes,
-    //   and `edges` contains connections (with weights) between nodes.
+    //   and the non-null elements of `edges` are the connections (with weights) between
+    //   nodes, in the order they were last set.
     // Representation invariant:
     //   - No two edges in `edges` have the same source and target vertices.
     //   - All vertices in edges must exist in `vertices`.
+    //   - `positions` indexes the edges: positions.get(s).get(t) == i iff edges.get(i)
+    //     is the edge s -> t; `sourcesOf` is its inverse: s is in sourcesOf.get(t) iff
+    //     positions.get(s) has key t. Neither holds empty inner collections.
+    //   - removedEdges is the number of null elements in `edges` (edges that were
+    //     changed or removed since the list was last compacted), at most half of it
+    //     once it holds more than a few elements.
     // Safety from rep exposure:
     //   - `vertices` and `edges` are private and final, so they cannot be reassigned or exposed directly.
     //   - Methods that return collections make defensive copies to avoid external modifications.
@@ -26,51 +37,126 @@ public class ConcreteEdgesGraph implements Graph<String> {
         checkRep();
     }
 
-    // checkRep to enforce the representation invariant
+    // checkRep to enforce the cheap, whole-graph parts of the representation invariant;
+    // each mutation checks the edges it touched with checkEdge, so checking stays O(1)
     private void checkRep() {
-        for (Edge edge : edges) {
+        assert removedEdges >= 0 && removedEdges <= edges.size();
+        assert positions.size() <= vertices.size() && sourcesOf.size() <= vertices.size();
+    }
+    
+    // checkRep to enforce the whole representation invariant in O(V + E), after bulk
+    // mutations and compaction rather than after every set
+    private void checkRepFully() {
+        checkRep();
+        int live = 0;
+        for (int i = 0; i < edges.size(); i++) {
+            Edge edge = edges.get(i);
+            if (edge == null) continue;
+            live++;
             assert vertices.contains(edge.getSource()) && vertices.contains(edge.getTarget());
-            for (Edge otherEdge : edges) {
-                if (!edge.equals(otherEdge)) {
-                    assert !(edge.getSource().equals(otherEdge.getSource()) && edge.getTarget().equals(otherEdge.getTarget()));
-                }
-            }
+            // an index entry per edge position, so no two edges share endpoints
+            assert Integer.valueOf(i).equals(positions.getOrDefault(edge.getSource(), Map.of()).get(edge.getTarget()));
+            assert sourcesOf.getOrDefault(edge.getTarget(), Set.of()).contains(edge.getSource());
+        }
+        assert live == edges.size() - removedEdges;
+        int indexed = 0;
+        for (Map<String, Integer> targets : positions.values()) {
+            assert !targets.isEmpty();
+            indexed += targets.size();
         }
+        int inverse = 0;
+        for (Set<String> sources : sourcesOf.values()) {
+            assert !sources.isEmpty();
+            inverse += sources.size();
+        }
+        assert indexed == live && inverse == live;
+    }
+    
+    // checks the representation invariant for the edge source -> target
+    private void checkEdge(String source, String target) {
+        Integer position = positions.getOrDefault(source, Map.of()).get(target);
+        assert (position != null) == sourcesOf.getOrDefault(target, Set.of()).contains(source);
+        if (position != null) {
+            Edge edge = edges.get(position);
+            assert edge.getSource().equals(source) && edge.getTarget().equals(target);
+            assert vertices.contains(source) && vertices.contains(target);
+            assert edge.getWeight() > 0;
+        }
+        checkRep();
     }
     
     @Override
     public boolean add(String vertex) {
-        if (vertices.add(vertex)) {
-            checkRep();
-            return true;
-        }
-        return false;
+        if (vertices.contains(vertex)) return false;
+        vertices.add(SymbolTable.intern(vertex));
+        checkRep();
+        return true;
     }
     
     @Override
     public int set(String source, String target, int weight) {
         if (weight < 0) throw new IllegalArgumentException("Weight must be non-negative.");
         
-        add(source);
-        add(target);
+        // intern once; the canonical labels go straight into the rep, as in load
+        source = SymbolTable.intern(source);
+        target = SymbolTable.intern(target);
+        vertices.add(source);
+        vertices.add(target);
         
-        for (Edge edge : edges) {
-            if (edge.getSource().equals(source) && edge.getTarget().equals(target)) {
-                int oldWeight = edge.getWeight();
-                edges.remove(edge);
-                if (weight > 0) {
-                    edges.add(new Edge(source, target, weight));
-                }
-                checkRep();
-                return oldWeight;
-            }
+        Integer position = positions.getOrDefault(source, Map.of()).get(target);
+        int oldWeight = position == null ? 0 : edges.get(position).getWeight();
+        if (position != null) {
+            unlink(source, target, position);
         }
-        
         if (weight > 0) {
-            edges.add(new Edge(source, target, weight));
+            // a changed edge moves to the end, as if removed and added again
+            link(new Edge(source, target, weight));
         }
-        checkRep();
-        return 0;
+        compactIfSparse();
+        checkEdge(source, target);
+        return oldWeight;
+    }
+    
+    // Appends an edge that is not in the graph and indexes it.
+    private void link(Edge edge) {
+        positions.computeIfAbsent(edge.getSource(), source -> new HashMap<>()).put(edge.getTarget(), edges.size());
+        sourcesOf.computeIfAbsent(edge.getTarget(), target -> new HashSet<>()).add(edge.getSource());
+        edges.add(edge);
+    }
+    
+    // Leaves a hole where the edge source -> target was, and unindexes it.
+    private void unlink(String source, String target, int position) {
+        edges.set(position, null);
+        removedEdges++;
+        Map<String, Integer> targets = positions.get(source);
+        targets.remove(target);
+        if (targets.isEmpty()) positions.remove(source);
+        Set<String> sources = sourcesOf.get(target);
+        sources.remove(source);
+        if (sources.isEmpty()) sourcesOf.remove(target);
+    }
+    
+    // Closes the holes once they make up half the list, so each hole costs O(1) amortized.
+    private void compactIfSparse() {
+        if (removedEdges > 16 && removedEdges * 2 > edges.size()) {
+            reindex();
+        }
+    }
+    
+    // Drops the holes from the list and rebuilds the indexes from it.
+    private void reindex() {
+        List<Edge> live = new ArrayList<>(edges.size() - removedEdges);
+        for (Edge edge : edges) {
+            if (edge != null) live.add(edge);
+        }
+        edges.clear();
+        positions.clear();
+        sourcesOf.clear();
+        removedEdges = 0;
+        for (Edge edge : live) {
+            link(edge);
+        }
+        checkRepFully();
     }
     
     @Override
@@ -78,11 +164,54 @@ public class ConcreteEdgesGraph implements Graph<String> {
         if (!vertices.contains(vertex)) return false;
         
         vertices.remove(vertex);
-        edges.removeIf(edge -> edge.getSource().equals(vertex) || edge.getTarget().equals(vertex));
-        checkRep();
+        edges.removeIf(edge -> edge != null && (edge.getSource().equals(vertex) || edge.getTarget().equals(vertex)));
+        reindex();
+        return true;
+    }
+    
+    @Override
+    public boolean removeAll(Collection<? extends String> labels) {
+        Set<String> removed = new HashSet<>(labels);
+        removed.retainAll(vertices);
+        if (removed.isEmpty()) return false;
+        
+        // one pass over the edges for the whole batch
+        vertices.removeAll(removed);
+        edges.removeIf(edge -> edge != null && (removed.contains(edge.getSource()) || removed.contains(edge.getTarget())));
+        reindex();
         return true;
     }
     
+    @Override
+    public void load(Map<String, Map<String, Integer>> adjacency, GraphBuilder.Duplicates duplicates) {
+        for (Map.Entry<String, Map<String, Integer>> group : adjacency.entrySet()) {
+            String source = SymbolTable.intern(group.getKey());
+            for (Map.Entry<String, Integer> entry : group.getValue().entrySet()) {
+                String target = SymbolTable.intern(entry.getKey());
+                int weight = entry.getValue();
+                Integer position = positions.getOrDefault(source, Map.of()).get(target);
+                if (position != null) {
+                    Edge edge = edges.get(position);
+                    if (duplicates == GraphBuilder.Duplicates.SUM) {
+                        weight += edge.getWeight();
+                    }
+                    if (weight > 0) {
+                        // unlike set, a bulk update keeps the edge in place
+                        edges.set(position, new Edge(source, target, weight));
+                    } else {
+                        unlink(source, target, position);
+                    }
+                } else if (weight > 0) {
+                    vertices.add(source);
+                    vertices.add(target);
+                    link(new Edge(source, target, weight));
+                }
+            }
+        }
+        compactIfSparse();
+        checkRepFully();
+    }
+    
     @Override
     public Set<String> vertices() {
         return new HashSet<>(vertices);
@@ -91,10 +220,8 @@ public class ConcreteEdgesGraph implements Graph<String> {
     @Override
     public Map<String, Integer> sources(String target) {
         Map<String, Integer> sources = new HashMap<>();
-        for (Edge edge : edges) {
-            if (edge.getTarget().equals(target)) {
-                sources.put(edge.getSource(), edge.getWeight());
-            }
+        for (String source : sourcesOf.getOrDefault(target, Set.of())) {
+            sources.put(source, edges.get(positions.get(source).get(target)).getWeight());
         }
         return sources;
     }
@@ -102,11 +229,8 @@ public class ConcreteEdgesGraph implements Graph<String> {
     @Override
     public Map<String, Integer> targets(String source) {
         Map<String, Integer> targets = new HashMap<>();
-        for (Edge edge : edges) {
-            if (edge.getSource().equals(source)) {
-                targets.put(edge.getTarget(), edge.getWeight());
-            }
-        }
+        positions.getOrDefault(source, Map.of()).forEach((target, position) ->
+                targets.put(target, edges.get(position).getWeight()));
         return targets;
     }
     
@@ -114,7 +238,9 @@ public class ConcreteEdgesGraph implements Graph<String> {
     public String toString() {
         StringBuilder sb = new StringBuilder("Vertices: ").append(vertices).append("\nEdges:\n");
         for (Edge edge : edges) {
-            sb.append(edge.toString()).append("\n");
+            if (edge != null) {
+                sb.append(edge.toString()).append("\n");
+            }
         }
         return sb.toString();
     }
@@ -1,6 +1,7 @@
 package graph;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,58 +11,80 @@ import java.util.HashSet;
 /**
  * An implementation of Graph for String labels.
  */
-public class ConcreteVerticesGraph implements Graph<String> {
+public class ConcreteVerticesGraph implements BulkLoadable<String>, BulkRemovable<String> {
     
     private final List<Vertex> vertices = new ArrayList<>();
+    private final Map<String, Vertex> index = new HashMap<>();
+    
+    // Abstraction function:
+    //   Represents a directed, weighted graph whose vertices are the labels of
+    //   `vertices`, in the order they were added, with an edge s -> t of weight w
+    //   iff the vertex labelled s has target t with weight w.
+    // Representation invariant:
+    //   - No two vertices have the same label, and every target is the label of
+    //     a vertex in `vertices`.
+    //   - `index` maps the label of each vertex in `vertices` to that vertex, and
+    //     has no other keys.
+    // Safety from rep exposure:
+    //   - Both fields are private and final; Vertex objects are never returned,
+    //     and observers return fresh collections.
     
     // Constructor
     public ConcreteVerticesGraph() {
         checkRep();
     }
 
-    // Check representation invariant
+    // Check the representation invariant in O(1); each mutation checks the
+    // vertices it touched with checkVertex
     private void checkRep() {
-        Set<String> seenLabels = new HashSet<>();
+        assert index.size() == vertices.size();
+    }
+    
+    // Check the whole representation invariant in O(V + E), after bulk
+    // mutations rather than after every set
+    private void checkRepFully() {
+        checkRep();
         for (Vertex vertex : vertices) {
-            assert vertex.getLabel() != null;
-            assert !seenLabels.contains(vertex.getLabel());
-            assert vertex.getTargets().values().stream().allMatch(weight -> weight >= 0);
-            seenLabels.add(vertex.getLabel());
+            assert index.get(vertex.getLabel()) == vertex; // so no label repeats
+            assert vertex.targetsAmong(index.keySet());
         }
     }
+    
+    // Check the representation invariant for one vertex
+    private void checkVertex(Vertex vertex) {
+        assert vertex.getLabel() != null;
+        assert index.get(vertex.getLabel()) == vertex;
+        checkRep();
+    }
 
     // Adds a new vertex to the graph if it doesn't already exist
     @Override
     public boolean add(String vertexLabel) {
-        // Check if vertex already exists
-        for (Vertex vertex : vertices) {
-            if (vertex.getLabel().equals(vertexLabel)) {
-                return false; // Vertex already exists
-            }
+        if (index.containsKey(vertexLabel)) {
+            return false; // Vertex already exists
         }
         // Create and add the new vertex
-        vertices.add(new Vertex(vertexLabel));
-        checkRep();
+        Vertex vertex = new Vertex(vertexLabel);
+        vertices.add(vertex);
+        index.put(vertex.getLabel(), vertex);
+        checkVertex(vertex);
         return true;
     }
 
-    // Sets or creates an edge with the given weight between source and target vertices
+    // Sets or creates an edge with the given weight between source and target vertices;
+    // a negative weight is rejected with IllegalArgumentException before anything
+    // changes, as in ConcreteEdgesGraph, rather than stored
     @Override
     public int set(String sourceLabel, String targetLabel, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight must be non-negative.");
+        add(sourceLabel); // If source doesn't exist, add it
+        add(targetLabel); // If target doesn't exist, add it
         Vertex sourceVertex = findVertex(sourceLabel);
-        if (sourceVertex == null) {
-            sourceVertex = new Vertex(sourceLabel); // If source doesn't exist, add it
-            vertices.add(sourceVertex);
-        }
-
-        Vertex targetVertex = findVertex(targetLabel);
-        if (targetVertex == null) {
-            targetVertex = new Vertex(targetLabel); // If target doesn't exist, add it
-            vertices.add(targetVertex);
-        }
 
         // Set the target for the source vertex
-        return sourceVertex.setTarget(targetLabel, weight);
+        int previous = sourceVertex.setTarget(targetLabel, weight);
+        checkVertex(sourceVertex);
+        return previous;
     }
 
     // Removes a vertex and its associated outgoing edges
@@ -80,9 +103,52 @@ public class ConcreteVerticesGraph implements Graph<String> {
         
         // Remove the vertex itself
         vertices.remove(vertexToRemove);
-        checkRep();
+        index.remove(vertexLabel);
+        checkRepFully();
+        return true;
+    }
+    
+    // Removes a batch of vertices and their edges in one pass over the vertices
+    @Override
+    public boolean removeAll(Collection<? extends String> vertexLabels) {
+        Set<String> removed = new HashSet<>(vertexLabels);
+        if (!vertices.removeIf(vertex -> removed.contains(vertex.getLabel()))) {
+            return false;
+        }
+        index.keySet().removeAll(removed);
+        for (Vertex vertex : vertices) {
+            vertex.removeTargets(removed);
+        }
+        checkRepFully();
         return true;
     }
+    
+    // Adds a batch of edges, looking each vertex up once in the index
+    @Override
+    public void load(Map<String, Map<String, Integer>> adjacency, GraphBuilder.Duplicates duplicates) {
+        for (Map.Entry<String, Map<String, Integer>> group : adjacency.entrySet()) {
+            Map<String, Integer> weights = group.getValue();
+            Vertex sourceVertex = index.get(group.getKey());
+            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                if (entry.getValue() == 0) continue;
+                // a positive weight needs both endpoints to exist
+                if (sourceVertex == null) {
+                    sourceVertex = new Vertex(group.getKey());
+                    vertices.add(sourceVertex);
+                    index.put(sourceVertex.getLabel(), sourceVertex);
+                }
+                if (!index.containsKey(entry.getKey())) {
+                    Vertex targetVertex = new Vertex(entry.getKey());
+                    vertices.add(targetVertex);
+                    index.put(targetVertex.getLabel(), targetVertex);
+                }
+            }
+            if (sourceVertex != null) {
+                sourceVertex.loadTargets(weights, duplicates == GraphBuilder.Duplicates.SUM);
+            }
+        }
+        checkRepFully();
+    }
 
     // Returns a set of all vertex labels in the graph
     @Override
@@ -100,9 +166,9 @@ public class ConcreteVerticesGraph implements Graph<String> {
         Map<String, Integer> sources = new HashMap<>();
         
         for (Vertex vertex : vertices) {
-            Map<String, Integer> targets = vertex.getTargets();
-            if (targets.containsKey(targetLabel)) {
-                sources.put(vertex.getLabel(), targets.get(targetLabel));
+            int weight = vertex.getWeight(targetLabel);
+            if (weight > 0) {
+                sources.put(vertex.getLabel(), weight);
             }
         }
         return sources;
@@ -120,12 +186,7 @@ public class ConcreteVerticesGraph implements Graph<String> {
 
     // Helper method to find a vertex by its label
     private Vertex findVertex(String label) {
-        for (Vertex vertex : vertices) {
-            if (vertex.getLabel().equals(label)) {
-                return vertex;
-            }
-        }
-        return null; // Vertex not found
+        return index.get(label); // null if not found
     }
 
     @Override
@@ -149,14 +210,14 @@ class Vertex {
 
     // Constructor
     public Vertex(String label) {
-        this.label = label;
+        this.label = SymbolTable.intern(label);
         checkRep();
     }
 
-    // Check rep invariant to ensure targets' weights are non-negative
+    // Check rep invariant; targets' weights are checked as they are written,
+    // so that a write costs O(1) however many targets the vertex has
     private void checkRep() {
         assert label != null;
-        assert targets.values().stream().allMatch(weight -> weight >= 0);
     }
 
     /**
@@ -165,6 +226,13 @@ class Vertex {
     public String getLabel() {
         return label;
     }
+    
+    /**
+     * Returns the weight of the edge to a target vertex, or 0 if there is none.
+     */
+    public int getWeight(String target) {
+        return targets.getOrDefault(target, 0);
+    }
 
     /**
      * Returns a map of target vertices and their associated edge weights.
@@ -181,15 +249,58 @@ class Vertex {
      * @return the previous weight of the edge, or 0 if none
      */
     public int setTarget(String target, int weight) {
+        assert weight >= 0;
         int originalWeight = targets.getOrDefault(target, 0);
         if (weight == 0) {
             targets.remove(target); // Remove edge if weight is 0
         } else {
-            targets.put(target, weight);
+            targets.put(SymbolTable.intern(target), weight);
         }
         checkRep();
         return originalWeight;
     }
+    
+    /**
+     * Merges a batch of edge weights into this vertex's targets. Edges whose
+     * resulting weight is 0 are removed.
+     * 
+     * @param weights nonnegative edge weights by target label
+     * @param sum whether to add to the existing weights rather than replace them
+     */
+    public void loadTargets(Map<String, Integer> weights, boolean sum) {
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            int weight = entry.getValue() + (sum ? targets.getOrDefault(entry.getKey(), 0) : 0);
+            assert weight >= 0;
+            if (weight == 0) {
+                targets.remove(entry.getKey());
+            } else {
+                targets.put(SymbolTable.intern(entry.getKey()), weight);
+            }
+        }
+        checkRep();
+    }
+    
+    /**
+     * Returns whether every target of this vertex is one of the given labels,
+     * with a positive weight.
+     * 
+     * @param labels labels of the vertices that may be targets
+     */
+    public boolean targetsAmong(Set<String> labels) {
+        for (Map.Entry<String, Integer> entry : targets.entrySet()) {
+            if (!labels.contains(entry.getKey()) || entry.getValue() <= 0) return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Removes the edges from this vertex to any of the given targets.
+     * 
+     * @param removed labels of the target vertices
+     */
+    public void removeTargets(Set<String> removed) {
+        targets.keySet().removeAll(removed);
+    }
 
     /**
      * Removes a target (edge) from this vertex.
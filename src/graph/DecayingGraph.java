@@ -0,0 +1,351 @@
+package graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * A Graph whose edge weights decay over time, so that recent adjacencies
+ * count for more than old ones.
+ * 
+ * <p>Time is measured in whole epochs read from a clock, for example
+ * {@code () -> System.currentTimeMillis() / 60_000} for one-minute epochs. An
+ * edge's weight halves every halfLife epochs. Nothing is rewritten as time
+ * passes: each edge stores its weight and the epoch it was last written, and
+ * the decay is applied when the edge is read or updated. Observers report
+ * decayed weights rounded to the nearest integer, so an edge disappears once
+ * its weight falls below 1/2; {@link #sweep()} then reclaims it, along with
+ * any vertex it leaves with no edges, so that a feed whose vocabulary keeps
+ * changing does not grow the graph without bound. {@link #sweep(int)} does
+ * the same a few vertices at a time, so the cost can be spread out, and
+ * {@link #sweeper(int)} packages it as a task for a background executor;
+ * all methods are synchronized, so the task may run concurrently with other
+ * callers.
+ * 
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class DecayingGraph<L> implements BulkLoadable<L> {
+    
+    private final double decayPerEpoch;
+    private final LongSupplier clock;
+    private final Map<L, Map<L, DecayingWeight>> out = new HashMap<>();
+    private final Map<L, Map<L, DecayingWeight>> in = new HashMap<>();
+    private final Deque<L> unswept = new ArrayDeque<>();
+    
+    // Abstraction function:
+    //   Represents, at epoch now = clock.getAsLong(), the graph whose vertices
+    //   are the keys of out, with an edge s -> t of weight
+    //   round(out.get(s).get(t).at(now, decayPerEpoch)) wherever that is > 0.
+    // Representation invariant:
+    //   - out and in have the same key set.
+    //   - out.get(s).get(t) and in.get(t).get(s) are the same object, present
+    //     in both maps or in neither.
+    //   - 0 < decayPerEpoch <= 1; every stored weight is > 0.
+    //   - unswept holds the sources the current incremental sweep has yet to
+    //     visit; it may also hold vertices removed since the pass began.
+    // Safety from rep exposure:
+    //   - All fields are private and final; DecayingWeight objects never
+    //     leave the class, and observers return fresh sets and maps.
+    
+    /**
+     * Create an empty graph.
+     * 
+     * @param halfLife number of epochs over which a weight halves, > 0; use
+     *        Double.POSITIVE_INFINITY for no decay
+     * @param clock source of the current epoch; must never go backwards
+     */
+    public DecayingGraph(double halfLife, LongSupplier clock) {
+        if (!(halfLife > 0)) throw new IllegalArgumentException("Half-life must be positive.");
+        this.decayPerEpoch = Math.pow(0.5, 1 / halfLife);
+        this.clock = clock;
+        checkRep();
+    }
+    
+    private void checkRep() {
+        assert decayPerEpoch > 0 && decayPerEpoch <= 1;
+        assert out.size() == in.size();
+    }
+    
+    private static int round(double weight) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.round(weight));
+    }
+    
+    private boolean addVertex(L vertex) {
+        if (out.containsKey(vertex)) return false;
+        vertex = SymbolTable.intern(vertex);
+        out.put(vertex, new HashMap<>());
+        in.put(vertex, new HashMap<>());
+        return true;
+    }
+    
+    @Override
+    public synchronized boolean add(L vertex) {
+        boolean added = addVertex(vertex);
+        checkRep();
+        return added;
+    }
+    
+    @Override
+    public synchronized int set(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight must be non-negative.");
+        return round(write(source, target, weight, false, clock.getAsLong()));
+    }
+    
+    // Sets (or, if sum, adds to) the weight of an edge at epoch now; returns
+    // the previous decayed weight.
+    private double write(L source, L target, double weight, boolean sum, long now) {
+        Map<L, DecayingWeight> targets = out.get(source);
+        DecayingWeight edge = targets == null ? null : targets.get(target);
+        double previous = edge == null ? 0 : edge.at(now, decayPerEpoch);
+        double next = sum ? previous + weight : weight;
+        
+        if (round(next) == 0) {
+            if (edge != null) {
+                targets.remove(target);
+                in.get(target).remove(source);
+            }
+        } else if (edge != null) {
+            edge.reset(next, now);
+        } else {
+            source = SymbolTable.intern(source);
+            target = SymbolTable.intern(target);
+            addVertex(source);
+            addVertex(target);
+            edge = new DecayingWeight(next, now);
+            out.get(source).put(target, edge);
+            in.get(target).put(source, edge);
+        }
+        checkRep();
+        return previous;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>SUM adds to the decayed weight, reinforcing the edge as of now.
+     */
+    @Override
+    public synchronized void load(Map<L, Map<L, Integer>> adjacency, GraphBuilder.Duplicates duplicates) {
+        long now = clock.getAsLong();
+        boolean sum = duplicates == GraphBuilder.Duplicates.SUM;
+        for (Map.Entry<L, Map<L, Integer>> group : adjacency.entrySet()) {
+            for (Map.Entry<L, Integer> edge : group.getValue().entrySet()) {
+                write(group.getKey(), edge.getKey(), edge.getValue(), sum, now);
+            }
+        }
+    }
+    
+    @Override
+    public synchronized boolean remove(L vertex) {
+        Map<L, DecayingWeight> targets = out.remove(vertex);
+        if (targets == null) return false;
+        Map<L, DecayingWeight> sources = in.remove(vertex);
+        for (L target : targets.keySet()) {
+            Map<L, DecayingWeight> row = in.get(target);
+            if (row != null) row.remove(vertex);
+        }
+        for (L source : sources.keySet()) {
+            Map<L, DecayingWeight> row = out.get(source);
+            if (row != null) row.remove(vertex);
+        }
+        checkRep();
+        return true;
+    }
+    
+    /**
+     * Reclaim every edge whose decayed weight has rounded down to zero, and
+     * every vertex that this leaves with no edges in or out. Vertices that
+     * had no edges before the sweep are kept. This holds the graph's lock
+     * for a pass over every edge; {@link #sweep(int)} does the same work in
+     * bounded steps.
+     * 
+     * @return the number of edges reclaimed
+     */
+    public synchronized int sweep() {
+        long now = clock.getAsLong();
+        List<L> touched = new ArrayList<>();
+        int swept = 0;
+        for (Map.Entry<L, Map<L, DecayingWeight>> row : out.entrySet()) {
+            swept += sweepRow(row.getKey(), row.getValue(), now, touched);
+        }
+        reclaimIsolated(touched);
+        checkRep();
+        return swept;
+    }
+    
+    /**
+     * Sweep as {@link #sweep()} does, but only the edges out of the next few
+     * vertices of a pass over the graph; each call continues the pass where
+     * the last one stopped, and a new pass begins once every vertex has been
+     * visited. Beginning a pass copies the vertex set; otherwise a call
+     * touches only the vertices it visits and their edges.
+     * 
+     * @param maxVertices most vertices whose edges to sweep, at least 1
+     * @return the number of edges reclaimed
+     */
+    public synchronized int sweep(int maxVertices) {
+        if (maxVertices < 1) throw new IllegalArgumentException("Batch size must be positive.");
+        if (unswept.isEmpty()) unswept.addAll(out.keySet());
+        long now = clock.getAsLong();
+        List<L> touched = new ArrayList<>();
+        int swept = 0;
+        for (int i = 0; i < maxVertices && !unswept.isEmpty(); i++) {
+            L source = unswept.poll();
+            Map<L, DecayingWeight> row = out.get(source);
+            if (row != null) swept += sweepRow(source, row, now, touched);
+        }
+        reclaimIsolated(touched);
+        checkRep();
+        return swept;
+    }
+    
+    // Reclaims the decayed edges of the row out of source, adding both
+    // endpoints of each to touched; returns how many it reclaimed.
+    private int sweepRow(L source, Map<L, DecayingWeight> row, long now, List<L> touched) {
+        int swept = 0;
+        Iterator<Map.Entry<L, DecayingWeight>> edges = row.entrySet().iterator();
+        while (edges.hasNext()) {
+            Map.Entry<L, DecayingWeight> edge = edges.next();
+            if (round(edge.getValue().at(now, decayPerEpoch)) == 0) {
+                edges.remove();
+                in.get(edge.getKey()).remove(source);
+                touched.add(edge.getKey());
+                swept++;
+            }
+        }
+        if (swept > 0) touched.add(source);
+        return swept;
+    }
+    
+    // Removes each of the given vertices that has no edges left.
+    private void reclaimIsolated(List<L> vertices) {
+        for (L vertex : vertices) {
+            Map<L, DecayingWeight> targets = out.get(vertex);
+            if (targets != null && targets.isEmpty() && in.get(vertex).isEmpty()) {
+                out.remove(vertex);
+                in.remove(vertex);
+            }
+        }
+    }
+    
+    /**
+     * Package a full sweep as a task, for example to run periodically on a
+     * ScheduledExecutorService.
+     * 
+     * @return a task that calls sweep() each time it runs
+     */
+    public Runnable sweeper() {
+        return this::sweep;
+    }
+    
+    /**
+     * Package an incremental sweep as a task, for example to run
+     * periodically on a ScheduledExecutorService.
+     * 
+     * @param maxVertices most vertices whose edges to sweep per run, at least 1
+     * @return a task that calls sweep(maxVertices) each time it runs
+     */
+    public Runnable sweeper(int maxVertices) {
+        if (maxVertices < 1) throw new IllegalArgumentException("Batch size must be positive.");
+        return () -> sweep(maxVertices);
+    }
+    
+    @Override
+    public synchronized Set<L> vertices() {
+        return new HashSet<>(out.keySet());
+    }
+    
+    @Override
+    public synchronized Map<L, Integer> sources(L target) {
+        return decayed(in.get(target));
+    }
+    
+    @Override
+    public synchronized Map<L, Integer> targets(L source) {
+        return decayed(out.get(source));
+    }
+    
+    private Map<L, Integer> decayed(Map<L, DecayingWeight> row) {
+        Map<L, Integer> weights = new HashMap<>();
+        if (row == null) return weights;
+        long now = clock.getAsLong();
+        for (Map.Entry<L, DecayingWeight> edge : row.entrySet()) {
+            int weight = round(edge.getValue().at(now, decayPerEpoch));
+            if (weight > 0) {
+                weights.put(edge.getKey(), weight);
+            }
+        }
+        return weights;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (L source : out.keySet()) {
+            decayed(out.get(source)).forEach((target, weight) ->
+                    sb.append("(").append(source).append(" -> ").append(target)
+                      .append(", ").append(weight).append(")\n"));
+        }
+        return sb.toString().strip();
+    }
+}
+
+/**
+ * A mutable edge weight together with the epoch it was last written, decayed
+ * on demand. This class is internal to the representation of DecayingGraph.
+ */
+class DecayingWeight {
+    
+    private double weight;
+    private long epoch;
+    
+    // Abstraction function:
+    //   Represents the weight `weight` as of epoch `epoch`; at a later epoch
+    //   now it is weight * decay^(now - epoch).
+    // Representation invariant:
+    //   - weight > 0.
+    // Safety from rep exposure:
+    //   - All fields are private and primitive.
+    
+    DecayingWeight(double weight, long epoch) {
+        this.weight = weight;
+        this.epoch = epoch;
+        checkRep();
+    }
+    
+    private void checkRep() {
+        assert weight > 0;
+    }
+    
+    /**
+     * @param now current epoch, >= the last write
+     * @param decay factor per epoch, in (0, 1]
+     * @return the weight decayed to epoch now
+     */
+    double at(long now, double decay) {
+        long elapsed = now - epoch;
+        return elapsed <= 0 ? weight : weight * Math.pow(decay, elapsed);
+    }
+    
+    /**
+     * @param weight new positive weight
+     * @param now epoch of the write
+     */
+    void reset(double weight, long now) {
+        this.weight = weight;
+        this.epoch = now;
+        checkRep();
+    }
+    
+    @Override
+    public String toString() {
+        return weight + "@" + epoch;
+    }
+}
@@ -0,0 +1,296 @@
+package graph;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Reads and writes graphs as tab-separated edge lists: one edge per line,
+ * as {@code source<TAB>target<TAB>weight}, in UTF-8.
+ * 
+ * <p>Both directions stream. The reader takes the file a chunk of lines at a
+ * time, parses a few chunks in parallel, and loads each into the graph
+ * through a {@link GraphBuilder} in file order, so its memory is bounded by
+ * the chunk size and the parallelism, never by the size of the file. Its
+ * chunk buffers are reused once their chunks are loaded; each label is
+ * decoded to a new String before it is converted. The writer goes vertex by
+ * vertex through a buffered writer.
+ */
+public final class EdgeListIO {
+    
+    static final int DEFAULT_CHUNK_BYTES = 4 << 20;
+    
+    private EdgeListIO() {
+        throw new AssertionError("not instantiable");
+    }
+    
+    /**
+     * Add the edges of an edge list to a graph of strings.
+     * 
+     * @param file edge list to read
+     * @param graph graph to add the edges to
+     * @param duplicates how an edge is combined with an earlier line, or an
+     *        existing edge, for the same source and target
+     * @return the number of edges read
+     * @throws IOException if the file cannot be read, or a line is not a
+     *         source, a target and a nonnegative int weight separated by tabs
+     *         (the edges before it may already be in graph)
+     */
+    public static long read(Path file, Graph<String> graph, GraphBuilder.Duplicates duplicates) throws IOException {
+        return read(file, Function.identity(), graph, duplicates);
+    }
+    
+    /**
+     * Add the edges of an edge list to a graph, converting each label.
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param file edge list to read
+     * @param labels converts a label as written to a vertex label; called
+     *        from several threads at once, so it must be thread-safe
+     * @param graph graph to add the edges to
+     * @param duplicates how an edge is combined with an earlier line, or an
+     *        existing edge, for the same source and target
+     * @return the number of edges read
+     * @throws IOException if the file cannot be read, or a line is not a
+     *         source, a target and a nonnegative int weight separated by tabs
+     *         (the edges before it may already be in graph)
+     */
+    public static <L> long read(Path file, Function<String, ? extends L> labels, Graph<L> graph,
+            GraphBuilder.Duplicates duplicates) throws IOException {
+        return read(file, labels, graph, duplicates, DEFAULT_CHUNK_BYTES);
+    }
+    
+    /**
+     * A parsed chunk of lines.
+     */
+    private static final class Chunk {
+        final Object[] sources;
+        final Object[] targets;
+        final int[] weights;
+        final int size;
+        final long lines;
+        
+        Chunk(Object[] sources, Object[] targets, int[] weights, int size, long lines) {
+            this.sources = sources;
+            this.targets = targets;
+            this.weights = weights;
+            this.size = size;
+            this.lines = lines;
+        }
+    }
+    
+    /**
+     * A malformed line, numbered within its chunk.
+     */
+    private static final class MalformedLine extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final long line;
+        
+        MalformedLine(long line, String message) {
+            super(message, null, false, false);
+            this.line = line;
+        }
+    }
+    
+    /**
+     * As {@link #read(Path, Function, Graph, GraphBuilder.Duplicates)}, with
+     * a given chunk size.
+     */
+    static <L> long read(Path file, Function<String, ? extends L> labels, Graph<L> graph,
+            GraphBuilder.Duplicates duplicates, int chunkBytes) throws IOException {
+        int window = ForkJoinPool.getCommonPoolParallelism() + 1;
+        Deque<CompletableFuture<Chunk>> inFlight = new ArrayDeque<>();
+        long[] totals = new long[2]; // lines, edges
+        
+        // buffers of the chunks in flight, in file order, and buffers whose
+        // chunks are loaded, free to read into again; at most window + 1 exist
+        Deque<byte[]> parsing = new ArrayDeque<>();
+        Deque<byte[]> free = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            byte[] bytes = new byte[chunkBytes];
+            int filled = 0; // bytes[0, filled) is the carried tail of the last chunk
+            boolean eof = false;
+            while (!eof) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, filled, bytes.length - filled);
+                while (buffer.hasRemaining() && !eof) {
+                    eof = channel.read(buffer) < 0;
+                }
+                filled = buffer.position();
+                int end = eof ? filled : lastNewline(bytes, filled) + 1;
+                if (end == 0) {
+                    // a line longer than the chunk: grow
+                    if (!eof) bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                    continue;
+                }
+                byte[] chunk = bytes;
+                inFlight.add(CompletableFuture.supplyAsync(() -> parse(chunk, end, labels)));
+                parsing.add(chunk);
+                
+                int carry = filled - end;
+                bytes = free.poll();
+                if (bytes == null || bytes.length < carry * 2) {
+                    bytes = new byte[Math.max(chunkBytes, carry * 2)];
+                }
+                System.arraycopy(chunk, end, bytes, 0, carry);
+                filled = carry;
+                if (inFlight.size() >= window) {
+                    load(inFlight.remove(), graph, duplicates, file, totals);
+                    free.add(parsing.remove());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                load(inFlight.remove(), graph, duplicates, file, totals);
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(false));
+        }
+        return totals[1];
+    }
+    
+    private static int lastNewline(byte[] bytes, int to) {
+        for (int i = to - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') return i;
+        }
+        return -1;
+    }
+    
+    // Waits for the next chunk in file order and loads it into graph.
+    @SuppressWarnings("unchecked")
+    private static <L> void load(CompletableFuture<Chunk> next, Graph<L> graph,
+            GraphBuilder.Duplicates duplicates, Path file, long[] totals) throws IOException {
+        Chunk chunk;
+        try {
+            chunk = next.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof MalformedLine) {
+                MalformedLine malformed = (MalformedLine) e.getCause();
+                throw new IOException(file + ":" + (totals[0] + malformed.line) + ": " + malformed.getMessage());
+            }
+            throw e;
+        }
+        GraphBuilder<L> builder = new GraphBuilder<>(duplicates, chunk.size, chunk.size / 4);
+        for (int i = 0; i < chunk.size; i++) {
+            builder.add((L) chunk.sources[i], (L) chunk.targets[i], chunk.weights[i]);
+        }
+        builder.buildInto(graph);
+        totals[0] += chunk.lines;
+        totals[1] += chunk.size;
+    }
+    
+    // Parses bytes[0, end), which ends at a line boundary (or the file's end).
+    private static Chunk parse(byte[] bytes, int end, Function<String, ?> labels) {
+        int capacity = 16;
+        Object[] sources = new Object[capacity];
+        Object[] targets = new Object[capacity];
+        int[] weights = new int[capacity];
+        int size = 0;
+        long line = 0;
+        
+        for (int start = 0; start < end; ) {
+            line++;
+            int newline = start;
+            while (newline < end && bytes[newline] != '\n') newline++;
+            int stop = newline > start && bytes[newline - 1] == '\r' ? newline - 1 : newline;
+            if (stop > start) {
+                int tab1 = indexOf(bytes, (byte) '\t', start, stop);
+                int tab2 = tab1 < 0 ? -1 : indexOf(bytes, (byte) '\t', tab1 + 1, stop);
+                if (tab2 < 0 || indexOf(bytes, (byte) '\t', tab2 + 1, stop) >= 0) {
+                    throw new MalformedLine(line, "expected 3 tab-separated fields");
+                }
+                if (size == capacity) {
+                    capacity *= 2;
+                    sources = Arrays.copyOf(sources, capacity);
+                    targets = Arrays.copyOf(targets, capacity);
+                    weights = Arrays.copyOf(weights, capacity);
+                }
+                sources[size] = labels.apply(new String(bytes, start, tab1 - start, StandardCharsets.UTF_8));
+                targets[size] = labels.apply(new String(bytes, tab1 + 1, tab2 - tab1 - 1, StandardCharsets.UTF_8));
+                weights[size] = weight(bytes, tab2 + 1, stop, line);
+                size++;
+            }
+            start = newline + 1;
+        }
+        return new Chunk(sources, targets, weights, size, line);
+    }
+    
+    private static int indexOf(byte[] bytes, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == b) return i;
+        }
+        return -1;
+    }
+    
+    // Parses a nonnegative decimal int without allocating.
+    private static int weight(byte[] bytes, int from, int to, long line) {
+        if (from == to) throw new MalformedLine(line, "missing weight");
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) throw new MalformedLine(line, "weight is not a nonnegative integer");
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE) throw new MalformedLine(line, "weight is larger than an int");
+        }
+        return (int) value;
+    }
+    
+    /**
+     * Write the edges of a graph as an edge list, one line per edge, grouped
+     * by source. Vertices without edges are not written.
+     * 
+     * @param graph graph to write; its labels are written with toString()
+     * @param file file to create or replace
+     * @return the number of edges written
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if a label contains a tab, carriage
+     *         return or newline, which the format cannot represent; the file
+     *         then holds the edges before it
+     */
+    public static long write(Graph<?> graph, Path file) throws IOException {
+        return writeEdges(graph, file);
+    }
+    
+    private static <L> long writeEdges(Graph<L> graph, Path file) throws IOException {
+        long edges = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (L source : graph.vertices()) {
+                Map<L, Integer> targets = graph.targets(source);
+                if (targets.isEmpty()) continue;
+                String sourceLabel = label(source);
+                for (Map.Entry<L, Integer> edge : targets.entrySet()) {
+                    out.write(sourceLabel);
+                    out.write('\t');
+                    out.write(label(edge.getKey()));
+                    out.write('\t');
+                    out.write(Integer.toString(edge.getValue()));
+                    out.write('\n');
+                    edges++;
+                }
+            }
+        }
+        return edges;
+    }
+    
+    private static String label(Object vertex) {
+        String label = vertex.toString();
+        for (int i = 0; i < label.length(); i++) {
+            char c = label.charAt(i);
+            if (c == '\t' || c == '\n' || c == '\r') {
+                throw new IllegalArgumentException("Label cannot be written to an edge list: " + label);
+            }
+        }
+        return label;
+    }
+}
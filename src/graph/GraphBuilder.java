@@ -0,0 +1,258 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Collects (source, target, weight) triples and loads them into a Graph in
+ * one pass.
+ * 
+ * <p>Triples are appended to flat, pre-sized arrays. At build time they are
+ * grouped by source with a stable counting sort, duplicates within each group
+ * are combined, and the grouped adjacency is handed to the graph in a single
+ * call if it is {@link BulkLoadable}, or edge by edge otherwise.
+ * 
+ * @param <L> type of vertex labels, must be immutable
+ */
+public class GraphBuilder<L> {
+    
+    /**
+     * How a triple is combined with an earlier triple, or an existing edge,
+     * for the same source and target.
+     */
+    public enum Duplicates {
+        /** Weights are added together. */
+        SUM,
+        /** The later weight replaces the earlier one. */
+        OVERWRITE
+    }
+    
+    private static final int DEFAULT_EXPECTED = 16;
+    
+    private final Duplicates duplicates;
+    private final int expectedSources;
+    private Object[] sources;
+    private Object[] targets;
+    private int[] weights;
+    private int size = 0;
+    
+    // Abstraction function:
+    //   Represents the sequence of triples (sources[i], targets[i], weights[i])
+    //   for 0 <= i < size, in the order they were added, to be combined
+    //   according to `duplicates`.
+    // Representation invariant:
+    //   - sources, targets and weights have the same length, at least size.
+    //   - For 0 <= i < size, sources[i] and targets[i] are non-null labels of
+    //     type L and weights[i] >= 0.
+    // Safety from rep exposure:
+    //   - All fields are private; the arrays are never returned, and caller
+    //     arrays passed to addAll are copied from, not kept.
+    
+    /**
+     * Create a builder with no size hints.
+     * 
+     * @param duplicates how triples for the same edge are combined
+     */
+    public GraphBuilder(Duplicates duplicates) {
+        this(duplicates, DEFAULT_EXPECTED, DEFAULT_EXPECTED);
+    }
+    
+    /**
+     * Create a builder pre-sized for a number of triples.
+     * 
+     * @param duplicates how triples for the same edge are combined
+     * @param expectedEdges expected number of triples, at least 0
+     * @param expectedSources expected number of distinct sources, at least 0
+     */
+    public GraphBuilder(Duplicates duplicates, int expectedEdges, int expectedSources) {
+        if (expectedEdges < 0 || expectedSources < 0) {
+            throw new IllegalArgumentException("Size hints must be non-negative.");
+        }
+        this.duplicates = duplicates;
+        this.expectedSources = expectedSources;
+        this.sources = new Object[expectedEdges];
+        this.targets = new Object[expectedEdges];
+        this.weights = new int[expectedEdges];
+        checkRep();
+    }
+    
+    // Checks the array shapes; triples are checked as they are added.
+    private void checkRep() {
+        assert sources.length == targets.length && targets.length == weights.length;
+        assert 0 <= size && size <= sources.length;
+    }
+    
+    /**
+     * Append a triple.
+     * 
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param weight nonnegative weight of the edge
+     * @return this builder
+     */
+    public GraphBuilder<L> add(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight must be non-negative.");
+        if (source == null || target == null) throw new NullPointerException("Labels must be non-null.");
+        if (size == sources.length) {
+            grow(size + 1);
+        }
+        sources[size] = source;
+        targets[size] = target;
+        weights[size] = weight;
+        size++;
+        return this;
+    }
+    
+    /**
+     * Append every triple of a stream, in encounter order.
+     * 
+     * @param edges triples to add
+     * @return this builder
+     */
+    public GraphBuilder<L> addAll(Stream<WeightedEdge<L>> edges) {
+        edges.forEachOrdered(edge -> add(edge.getSource(), edge.getTarget(), edge.getWeight()));
+        return this;
+    }
+    
+    /**
+     * Append the triples (sources[i], targets[i], weights[i]) in index order.
+     * 
+     * @param sources labels of the source vertices
+     * @param targets labels of the target vertices, same length as sources
+     * @param weights nonnegative weights, same length as sources
+     * @return this builder
+     */
+    public GraphBuilder<L> addAll(L[] sources, L[] targets, int[] weights) {
+        if (sources.length != targets.length || targets.length != weights.length) {
+            throw new IllegalArgumentException("Arrays must have the same length.");
+        }
+        if (size + sources.length > this.sources.length) {
+            grow(size + sources.length);
+        }
+        for (int i = 0; i < sources.length; i++) {
+            add(sources[i], targets[i], weights[i]);
+        }
+        return this;
+    }
+    
+    /**
+     * @return the number of triples added so far
+     */
+    public int size() {
+        return size;
+    }
+    
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, sources.length * 2);
+        sources = Arrays.copyOf(sources, capacity);
+        targets = Arrays.copyOf(targets, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+        checkRep();
+    }
+    
+    /**
+     * Load the triples added so far into a graph. The builder is not modified
+     * and may be loaded into further graphs.
+     * 
+     * @param <G> type of the graph
+     * @param graph graph to add the edges to
+     * @return graph
+     */
+    public <G extends Graph<L>> G buildInto(G graph) {
+        Map<L, Map<L, Integer>> adjacency = group();
+        if (graph instanceof BulkLoadable) {
+            ((BulkLoadable<L>) graph).load(adjacency, duplicates);
+        } else {
+            setAll(graph, adjacency, duplicates);
+        }
+        return graph;
+    }
+    
+    /**
+     * Groups the triples by source, combining duplicates within each group.
+     * 
+     * @return adjacency in the form expected by BulkLoadable.load, with
+     *         sources in order of first appearance
+     */
+    @SuppressWarnings("unchecked")
+    Map<L, Map<L, Integer>> group() {
+        // pass 1: number the sources and count the triples of each
+        Map<L, Integer> groupIds = new HashMap<>(capacityFor(expectedSources));
+        int[] groupOf = new int[size];
+        int[] counts = new int[Math.max(expectedSources, 1)];
+        for (int i = 0; i < size; i++) {
+            L source = (L) sources[i];
+            Integer id = groupIds.get(source);
+            if (id == null) {
+                id = groupIds.size();
+                groupIds.put(source, id);
+                if (id == counts.length) {
+                    counts = Arrays.copyOf(counts, counts.length * 2);
+                }
+            }
+            groupOf[i] = id;
+            counts[id]++;
+        }
+        
+        // pass 2: stable counting sort of triple indices by group
+        int groups = groupIds.size();
+        int[] starts = new int[groups + 1];
+        for (int g = 0; g < groups; g++) {
+            starts[g + 1] = starts[g] + counts[g];
+        }
+        int[] next = Arrays.copyOf(starts, groups);
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[next[groupOf[i]]++] = i;
+        }
+        
+        // pass 3: build each group's target map at its final size
+        Map<L, Map<L, Integer>> adjacency = new LinkedHashMap<>(capacityFor(groups));
+        for (int g = 0; g < groups; g++) {
+            Map<L, Integer> group = new HashMap<>(capacityFor(starts[g + 1] - starts[g]));
+            for (int k = starts[g]; k < starts[g + 1]; k++) {
+                int i = order[k];
+                L target = (L) targets[i];
+                if (duplicates == Duplicates.SUM) {
+                    group.merge(target, weights[i], Integer::sum);
+                } else {
+                    group.put(target, weights[i]);
+                }
+            }
+            adjacency.put((L) sources[order[starts[g]]], group);
+        }
+        return adjacency;
+    }
+    
+    /**
+     * Load grouped adjacency into any graph with one set call per edge.
+     * 
+     * @param <L> type of vertex labels
+     * @param graph graph to add the edges to
+     * @param adjacency edges grouped by source, as for BulkLoadable.load
+     * @param duplicates how an edge that already exists is combined
+     */
+    static <L> void setAll(Graph<L> graph, Map<L, Map<L, Integer>> adjacency, Duplicates duplicates) {
+        for (Map.Entry<L, Map<L, Integer>> entry : adjacency.entrySet()) {
+            L source = entry.getKey();
+            Map<L, Integer> existing = graph.targets(source);
+            for (Map.Entry<L, Integer> edge : entry.getValue().entrySet()) {
+                int weight = edge.getValue();
+                if (duplicates == Duplicates.SUM) {
+                    weight += existing.getOrDefault(edge.getKey(), 0);
+                }
+                if (weight > 0 || existing.containsKey(edge.getKey())) {
+                    graph.set(source, edge.getKey(), weight);
+                }
+            }
+        }
+    }
+    
+    // HashMap capacity that holds n entries without resizing
+    private static int capacityFor(int n) {
+        return (int) (n / 0.75f) + 1;
+    }
+}
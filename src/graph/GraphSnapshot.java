@@ -0,0 +1,109 @@
+package graph;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable point-in-time version of a {@link VersionedGraph}.
+ * Observers may be called from any thread without locking; mutators throw
+ * UnsupportedOperationException.
+ * 
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public final class GraphSnapshot<L> implements Graph<L> {
+    
+    private final long version;
+    private final PersistentMap<L, PersistentMap<L, Integer>> out;
+    private final PersistentMap<L, PersistentMap<L, Integer>> in;
+    
+    // Abstraction function:
+    //   Represents version `version` of a graph whose vertices are the keys of
+    //   out, and which has an edge s -> t of weight w iff out.get(s).get(t) == w.
+    // Representation invariant:
+    //   - out and in have the same key set.
+    //   - out.get(s).get(t) == in.get(t).get(s) for every edge, and every
+    //     weight is positive.
+    //   - version >= 0.
+    // Safety from rep exposure:
+    //   - All fields are private and final and the maps are immutable;
+    //     observers return fresh mutable copies.
+    
+    GraphSnapshot(long version, PersistentMap<L, PersistentMap<L, Integer>> out,
+            PersistentMap<L, PersistentMap<L, Integer>> in) {
+        this.version = version;
+        this.out = out;
+        this.in = in;
+        checkRep();
+    }
+    
+    // Checks the cheap parts of the rep invariant; edge symmetry is
+    // maintained by VersionedGraph's writer.
+    private void checkRep() {
+        assert version >= 0;
+        assert out.size() == in.size();
+    }
+    
+    /**
+     * @return the version number of this snapshot; later snapshots of the
+     *         same VersionedGraph have larger numbers
+     */
+    public long version() {
+        return version;
+    }
+    
+    PersistentMap<L, PersistentMap<L, Integer>> out() {
+        return out;
+    }
+    
+    PersistentMap<L, PersistentMap<L, Integer>> in() {
+        return in;
+    }
+    
+    // Returns the adjacency of vertex, empty if vertex is absent.
+    static <L> PersistentMap<L, Integer> row(PersistentMap<L, PersistentMap<L, Integer>> adjacency, L vertex) {
+        PersistentMap<L, Integer> row = adjacency.get(vertex);
+        return row == null ? PersistentMap.empty() : row;
+    }
+    
+    @Override
+    public boolean add(L vertex) {
+        throw new UnsupportedOperationException("Snapshots are immutable.");
+    }
+    
+    @Override
+    public int set(L source, L target, int weight) {
+        throw new UnsupportedOperationException("Snapshots are immutable.");
+    }
+    
+    @Override
+    public boolean remove(L vertex) {
+        throw new UnsupportedOperationException("Snapshots are immutable.");
+    }
+    
+    @Override
+    public Set<L> vertices() {
+        Set<L> vertices = new HashSet<>();
+        out.forEach((vertex, targets) -> vertices.add(vertex));
+        return vertices;
+    }
+    
+    @Override
+    public Map<L, Integer> sources(L target) {
+        return row(in, target).toMap();
+    }
+    
+    @Override
+    public Map<L, Integer> targets(L source) {
+        return row(out, source).toMap();
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Version ").append(version).append(":");
+        out.forEach((source, targets) -> targets.forEach((target, weight) ->
+                sb.append("\n").append(source).append(" -> ").append(target)
+                  .append(" (weight: ").append(weight).append(")")));
+        return sb.toString();
+    }
+}
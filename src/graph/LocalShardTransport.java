@@ -0,0 +1,75 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * An in-process ShardTransport: every shard is a backend graph living in this
+ * JVM. Stands in for a remote transport so that a PartitionedGraph can be run
+ * and tested on one machine.
+ * 
+ * @param <L> type of vertex labels in the shards, must be immutable
+ */
+public class LocalShardTransport<L> implements ShardTransport<L> {
+    
+    private final List<Graph<L>> shards;
+    
+    // Abstraction function:
+    //   Represents a transport to shards.size() shards, where shards.get(i) is
+    //   the backend graph of shard i.
+    // Representation invariant:
+    //   - shards is non-empty and contains no nulls.
+    //   - No backend appears twice in shards.
+    // Safety from rep exposure:
+    //   - shards is private and final and never returned; backends are only
+    //     handed to operations while holding that backend's lock.
+    
+    /**
+     * Create a transport to a number of fresh shards.
+     * 
+     * @param shardCount number of shards, at least 1
+     * @param backend creates the empty backend graph of each shard
+     */
+    public LocalShardTransport(int shardCount, Supplier<? extends Graph<L>> backend) {
+        if (shardCount < 1) throw new IllegalArgumentException("Shard count must be positive.");
+        this.shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(backend.get());
+        }
+        checkRep();
+    }
+    
+    private void checkRep() {
+        assert !shards.isEmpty();
+        for (int i = 0; i < shards.size(); i++) {
+            assert shards.get(i) != null;
+            for (int j = i + 1; j < shards.size(); j++) {
+                assert shards.get(i) != shards.get(j);
+            }
+        }
+    }
+    
+    @Override
+    public int shardCount() {
+        return shards.size();
+    }
+    
+    @Override
+    public <R> R call(int shard, Function<Graph<L>, R> operation) {
+        Graph<L> backend = shards.get(shard);
+        synchronized (backend) {
+            return operation.apply(backend);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < shards.size(); i++) {
+            sb.append("Shard ").append(i).append(":\n").append(shards.get(i)).append("\n");
+        }
+        return sb.toString().strip();
+    }
+}
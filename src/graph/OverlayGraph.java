@@ -0,0 +1,295 @@
+package graph;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A read-only view of several graphs (layers) as their weighted sum.
+ * 
+ * <p>The vertices of the overlay are the union of the layers' vertices. The
+ * weight of the edge s -> t is the sum over the layers of the layer's weight
+ * for s -> t times the layer's blend weight, rounded to the nearest integer;
+ * if it rounds to 0 the overlay has no such edge. Nothing is copied: the
+ * overlay reads the layers on every query, so it reflects later changes to
+ * them, and {@link #setWeight(int, double)} re-blends in constant time.
+ * Mutators throw UnsupportedOperationException.
+ * 
+ * <p>The maps returned by {@link #sources(Object)} and {@link #targets(Object)}
+ * are unmodifiable and computed lazily: looking up one key reads only that
+ * key in each layer's row, and iterating or sizing the map walks the layers'
+ * rows without building the sum. They use the blend weights as of the query.
+ * 
+ * <p>Blend weights may be changed while other threads read the overlay; the
+ * layers themselves must be safe for the readers that use them.
+ * 
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public final class OverlayGraph<L> implements Graph<L> {
+    
+    private final List<Graph<L>> layers;
+    private volatile double[] weights;
+    
+    // Abstraction function:
+    //   Represents the graph whose vertices are the union of the vertices of
+    //   layers, with an edge s -> t of weight
+    //   round(sum_i weights[i] * layers.get(i).targets(s).get(t)) whenever
+    //   that is positive.
+    // Representation invariant:
+    //   - layers is non-empty and weights.length == layers.size().
+    //   - Every weight is finite and nonnegative.
+    // Safety from rep exposure:
+    //   - layers is an unmodifiable copy of the list given; the layers
+    //     themselves are shared with the caller by design, as the view is
+    //     over them.
+    //   - weights is replaced, never mutated, so a reader always sees a
+    //     complete array; getWeight returns a primitive.
+    
+    /**
+     * Create an overlay in which every layer has blend weight 1.
+     * 
+     * @param layers the graphs to overlay, at least one
+     */
+    public OverlayGraph(List<? extends Graph<L>> layers) {
+        if (layers.isEmpty()) throw new IllegalArgumentException("An overlay needs at least one layer.");
+        this.layers = List.copyOf(layers);
+        this.weights = new double[layers.size()];
+        Arrays.fill(this.weights, 1);
+        checkRep();
+    }
+    
+    /**
+     * Create an overlay with the given blend weights.
+     * 
+     * @param layers the graphs to overlay, at least one
+     * @param weights finite nonnegative blend weight of each layer, in order
+     */
+    public OverlayGraph(List<? extends Graph<L>> layers, double... weights) {
+        this(layers);
+        if (weights.length != layers.size()) {
+            throw new IllegalArgumentException("Expected " + layers.size() + " weights, got " + weights.length + ".");
+        }
+        for (int i = 0; i < weights.length; i++) {
+            setWeight(i, weights[i]);
+        }
+    }
+    
+    private void checkRep() {
+        double[] weights = this.weights;
+        assert !layers.isEmpty() && weights.length == layers.size();
+        for (double weight : weights) {
+            assert Double.isFinite(weight) && weight >= 0;
+        }
+    }
+    
+    /**
+     * @return the number of layers
+     */
+    public int layerCount() {
+        return layers.size();
+    }
+    
+    /**
+     * @param layer index of a layer
+     * @return the blend weight of that layer
+     */
+    public double getWeight(int layer) {
+        return weights[layer];
+    }
+    
+    /**
+     * Change the blend weight of one layer. No edge data is copied.
+     * 
+     * @param layer index of a layer
+     * @param weight finite nonnegative blend weight; 0 hides the layer's edges
+     */
+    public synchronized void setWeight(int layer, double weight) {
+        if (!Double.isFinite(weight) || weight < 0) {
+            throw new IllegalArgumentException("Blend weight must be finite and non-negative.");
+        }
+        double[] next = weights.clone();
+        next[layer] = weight;
+        weights = next;
+        checkRep();
+    }
+    
+    // Rounds a blended weight to an edge weight, 0 meaning no edge.
+    static int round(double weight) {
+        return (int) Math.min(Math.round(weight), Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public boolean add(L vertex) {
+        throw new UnsupportedOperationException("Overlays are read-only.");
+    }
+    
+    @Override
+    public int set(L source, L target, int weight) {
+        throw new UnsupportedOperationException("Overlays are read-only.");
+    }
+    
+    @Override
+    public boolean remove(L vertex) {
+        throw new UnsupportedOperationException("Overlays are read-only.");
+    }
+    
+    @Override
+    public Set<L> vertices() {
+        Set<L> vertices = new HashSet<>();
+        for (Graph<L> layer : layers) {
+            vertices.addAll(layer.vertices());
+        }
+        return vertices;
+    }
+    
+    @Override
+    public Map<L, Integer> sources(L target) {
+        return blend(layer -> layer.sources(target));
+    }
+    
+    @Override
+    public Map<L, Integer> targets(L source) {
+        return blend(layer -> layer.targets(source));
+    }
+    
+    // Collects one row from each layer with a nonzero blend weight.
+    private Map<L, Integer> blend(Function<Graph<L>, Map<L, Integer>> row) {
+        double[] weights = this.weights;
+        List<Map<L, Integer>> rows = new ArrayList<>(layers.size());
+        List<Double> rowWeights = new ArrayList<>(layers.size());
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] == 0) continue;
+            Map<L, Integer> layerRow = row.apply(layers.get(i));
+            if (layerRow.isEmpty()) continue;
+            rows.add(layerRow);
+            rowWeights.add(weights[i]);
+        }
+        if (rows.isEmpty()) return Map.of();
+        return new BlendedRow<>(rows, rowWeights.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Overlay of ").append(layers.size()).append(" layers:");
+        for (L source : vertices()) {
+            targets(source).forEach((target, weight) ->
+                    sb.append("\n").append(source).append(" -> ").append(target)
+                      .append(" (weight: ").append(weight).append(")"));
+        }
+        return sb.toString();
+    }
+}
+
+/**
+ * An unmodifiable weighted sum of adjacency rows, summed one key at a time
+ * on lookup and on iteration, so no map of the sum is ever built.
+ * This class is internal to the representation of OverlayGraph.
+ */
+class BlendedRow<L> extends AbstractMap<L, Integer> {
+    
+    private final List<Map<L, Integer>> rows;
+    private final double[] weights;
+    
+    // Abstraction function:
+    //   Represents the map from each key k of some row to
+    //   round(sum_i weights[i] * rows.get(i).get(k)), for the keys where that
+    //   is positive.
+    // Representation invariant:
+    //   - rows is nonempty, rows.size() == weights.length, and every weight
+    //     is positive.
+    // Safety from rep exposure:
+    //   - The rows are never modified, and the map is unmodifiable.
+    
+    BlendedRow(List<Map<L, Integer>> rows, double[] weights) {
+        this.rows = rows;
+        this.weights = weights;
+        assert !rows.isEmpty() && rows.size() == weights.length;
+    }
+    
+    @Override
+    public Integer get(Object key) {
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            Integer weight = rows.get(i).get(key);
+            if (weight != null) total += weights[i] * weight;
+        }
+        int rounded = OverlayGraph.round(total);
+        return rounded > 0 ? rounded : null;
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return !new Entries().hasNext();
+    }
+    
+    @Override
+    public Set<Map.Entry<L, Integer>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<L, Integer>> iterator() {
+                return new Entries();
+            }
+            
+            @Override
+            public int size() {
+                int size = 0;
+                for (Entries entries = new Entries(); entries.hasNext(); entries.next()) {
+                    size++;
+                }
+                return size;
+            }
+        };
+    }
+    
+    // Visits each key once, from the first row that has it, skipping keys
+    // whose sum rounds to 0.
+    private class Entries implements Iterator<Map.Entry<L, Integer>> {
+        
+        private int row = 0;
+        private Iterator<L> keys = rows.get(0).keySet().iterator();
+        private Map.Entry<L, Integer> next;
+        
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                while (!keys.hasNext()) {
+                    if (row + 1 >= rows.size()) return false;
+                    keys = rows.get(++row).keySet().iterator();
+                }
+                L key = keys.next();
+                if (inEarlierRow(key)) continue;
+                Integer weight = get(key);
+                if (weight != null) next = new SimpleImmutableEntry<>(key, weight);
+            }
+            return true;
+        }
+        
+        @Override
+        public Map.Entry<L, Integer> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Map.Entry<L, Integer> entry = next;
+            next = null;
+            return entry;
+        }
+        
+        private boolean inEarlierRow(L key) {
+            for (int i = 0; i < row; i++) {
+                if (rows.get(i).containsKey(key)) return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * A Graph whose vertices are hash-partitioned across a number of shards, each
+ * with its own backend graph, so that a graph too large for one backend can be
+ * spread over several.
+ * 
+ * <p>Every vertex is owned by exactly one shard, chosen from the hash of its
+ * label. An edge is stored in the shard that owns its source, so
+ * {@link #targets(Object) targets} is answered by a single shard, while
+ * {@link #sources(Object) sources} asks every shard once and merges the
+ * answers. Callers that look up both sides of a vertex, as GraphPoet does when
+ * it searches for a bridge word, therefore make one call per shard rather than
+ * one call per candidate vertex.
+ * 
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class PartitionedGraph<L> implements BulkLoadable<L>, BulkRemovable<L> {
+    
+    private final ShardTransport<L> transport;
+    
+    // Abstraction function:
+    //   Represents the graph whose vertices are, for every shard i, the
+    //   vertices v of shard i's backend with shardOf(v) == i, and whose edges
+    //   are the edges of all the backends.
+    //   A backend may also contain "ghost" vertices owned by another shard;
+    //   they are targets of edges stored there and are not vertices of this
+    //   graph in their own right.
+    // Representation invariant:
+    //   - transport has at least one shard.
+    //   - Every edge source -> target is stored in shard shardOf(source), and
+    //     target is also a vertex of shard shardOf(target).
+    // Safety from rep exposure:
+    //   - transport is private and final; backends are only reached through
+    //     it, and every observer returns a freshly built set or map.
+    
+    /**
+     * Create an empty graph partitioned across in-process shards.
+     * 
+     * @param shardCount number of shards, at least 1
+     * @param backend creates the empty backend graph of each shard
+     */
+    public PartitionedGraph(int shardCount, Supplier<? extends Graph<L>> backend) {
+        this(new LocalShardTransport<>(shardCount, backend));
+    }
+    
+    /**
+     * Create a graph partitioned across the shards of a transport.
+     * 
+     * @param transport transport to shards whose backends are empty and not
+     *        shared with any other graph
+     */
+    public PartitionedGraph(ShardTransport<L> transport) {
+        this.transport = transport;
+        checkRep();
+    }
+    
+    // Checks the cheap part of the rep invariant; edge placement is checked
+    // where edges are written.
+    private void checkRep() {
+        assert transport.shardCount() > 0;
+    }
+    
+    /**
+     * @param vertex a label
+     * @return index of the shard that owns vertex
+     */
+    int shardOf(L vertex) {
+        int hash = vertex.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), transport.shardCount());
+    }
+    
+    @Override
+    public boolean add(L vertex) {
+        return transport.call(shardOf(vertex), shard -> shard.add(vertex));
+    }
+    
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight must be non-negative.");
+        
+        int previous = transport.call(shardOf(source), shard -> {
+            if (weight == 0 && !shard.targets(source).containsKey(target)) {
+                return 0;
+            }
+            return shard.set(source, target, weight);
+        });
+        if (weight > 0) {
+            transport.call(shardOf(target), shard -> shard.add(target));
+        }
+        return previous;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>The batch is split by shard, and each shard receives its part of the
+     * batch in a single call.
+     */
+    @Override
+    public void load(Map<L, Map<L, Integer>> adjacency, GraphBuilder.Duplicates duplicates) {
+        int shardCount = transport.shardCount();
+        List<Map<L, Map<L, Integer>>> batches = new ArrayList<>(shardCount);
+        List<Set<L>> owned = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            batches.add(new LinkedHashMap<>());
+            owned.add(new HashSet<>());
+        }
+        for (Map.Entry<L, Map<L, Integer>> group : adjacency.entrySet()) {
+            batches.get(shardOf(group.getKey())).put(group.getKey(), group.getValue());
+            for (Map.Entry<L, Integer> edge : group.getValue().entrySet()) {
+                if (edge.getValue() > 0) {
+                    owned.get(shardOf(edge.getKey())).add(edge.getKey());
+                }
+            }
+        }
+        
+        for (int i = 0; i < shardCount; i++) {
+            Map<L, Map<L, Integer>> batch = batches.get(i);
+            Set<L> targets = owned.get(i);
+            if (batch.isEmpty() && targets.isEmpty()) continue;
+            transport.call(i, shard -> {
+                if (shard instanceof BulkLoadable) {
+                    ((BulkLoadable<L>) shard).load(batch, duplicates);
+                } else {
+                    GraphBuilder.setAll(shard, batch, duplicates);
+                }
+                for (L target : targets) {
+                    shard.add(target);
+                }
+                return null;
+            });
+        }
+        checkRep();
+    }
+    
+    @Override
+    public boolean remove(L vertex) {
+        int owner = shardOf(vertex);
+        boolean removed = transport.call(owner, shard -> shard.remove(vertex));
+        if (!removed) return false;
+        
+        // drop the ghost, and with it any edges into vertex, from every other shard
+        for (int i = 0; i < transport.shardCount(); i++) {
+            if (i != owner) {
+                transport.call(i, shard -> shard.remove(vertex));
+            }
+        }
+        checkRep();
+        return true;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>Each shard is called once for the whole batch. The shard removes
+     * the vertices it owns, whose presence decides the result, and then its
+     * ghosts of the others, which takes their edges stored there with them.
+     */
+    @Override
+    public boolean removeAll(Collection<? extends L> vertices) {
+        Set<L> batch = new HashSet<>(vertices);
+        boolean removed = false;
+        for (int i = 0; i < transport.shardCount(); i++) {
+            List<L> owned = new ArrayList<>();
+            List<L> ghosts = new ArrayList<>();
+            for (L vertex : batch) {
+                (shardOf(vertex) == i ? owned : ghosts).add(vertex);
+            }
+            removed |= transport.call(i, shard -> {
+                boolean found = !owned.isEmpty() && removeFrom(shard, owned);
+                if (!ghosts.isEmpty()) removeFrom(shard, ghosts);
+                return found;
+            });
+        }
+        checkRep();
+        return removed;
+    }
+    
+    // Removes vertices from one backend, in one call if it supports that.
+    private static <L> boolean removeFrom(Graph<L> shard, Collection<L> vertices) {
+        if (shard instanceof BulkRemovable) {
+            return ((BulkRemovable<L>) shard).removeAll(vertices);
+        }
+        boolean removed = false;
+        for (L vertex : vertices) {
+            removed |= shard.remove(vertex);
+        }
+        return removed;
+    }
+    
+    @Override
+    public Set<L> vertices() {
+        Set<L> vertices = new HashSet<>();
+        for (int i = 0; i < transport.shardCount(); i++) {
+            final int index = i;
+            transport.call(i, shard -> {
+                for (L vertex : shard.vertices()) {
+                    if (shardOf(vertex) == index) {
+                        vertices.add(vertex);
+                    }
+                }
+                return null;
+            });
+        }
+        return vertices;
+    }
+    
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Map<L, Integer> sources = new HashMap<>();
+        for (int i = 0; i < transport.shardCount(); i++) {
+            sources.putAll(transport.call(i, shard -> shard.sources(target)));
+        }
+        return sources;
+    }
+    
+    @Override
+    public Map<L, Integer> targets(L source) {
+        return new HashMap<>(transport.call(shardOf(source), shard -> shard.targets(source)));
+    }
+    
+    @Override
+    public String toString() {
+        return transport.toString();
+    }
+}
@@ -0,0 +1,322 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash map whose updates return a new map sharing all untouched
+ * structure with the old one (a hash array mapped trie). An update copies only
+ * the O(log n) nodes on the path to the changed key, so old versions stay
+ * valid and cheap to keep.
+ * 
+ * @param <K> type of keys, must be immutable
+ * @param <V> type of values, must be immutable
+ */
+final class PersistentMap<K, V> {
+    
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+    
+    private final Object root;
+    private final int size;
+    
+    // Abstraction function:
+    //   Represents the map containing the key -> value pair of every Leaf
+    //   reachable from root.
+    // Representation invariant:
+    //   - root is null iff size == 0; otherwise root is a Leaf, Collision, or
+    //     Branch, and size is the number of Leaves reachable from it.
+    //   - A node reached through branch slots i0, i1, ..., ik only holds
+    //     leaves whose hash has 5-bit chunks i0, i1, ..., ik from the low end.
+    //   - A Branch has at least one child; a Collision holds at least two
+    //     leaves with the same hash and distinct keys.
+    //   - Keys are distinct, and no node is ever mutated after construction.
+    // Safety from rep exposure:
+    //   - All fields are private and final; nodes never leave this class,
+    //     and keys and values are immutable.
+    
+    private static final class Leaf<K, V> {
+        final int hash;
+        final K key;
+        final V value;
+        
+        Leaf(int hash, K key, V value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+    }
+    
+    private static final class Collision<K, V> {
+        final int hash;
+        final Leaf<K, V>[] leaves;
+        
+        Collision(int hash, Leaf<K, V>[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+    }
+    
+    private static final class Branch {
+        final int bitmap;
+        final Object[] children;
+        
+        Branch(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+    }
+    
+    private PersistentMap(Object root, int size) {
+        this.root = root;
+        this.size = size;
+        checkRep();
+    }
+    
+    // Checks the size; node structure is maintained by put and remove.
+    private void checkRep() {
+        assert size >= 0;
+        assert (root == null) == (size == 0);
+    }
+    
+    /**
+     * @param <K> type of keys
+     * @param <V> type of values
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+    
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+    
+    /**
+     * @return the number of keys in this map
+     */
+    int size() {
+        return size;
+    }
+    
+    /**
+     * @param key a key
+     * @return true iff this map contains key
+     */
+    boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+    
+    /**
+     * @param key a key
+     * @return the value of key, or null if key is absent
+     */
+    @SuppressWarnings("unchecked")
+    V get(Object key) {
+        int hash = hash(key);
+        Object node = root;
+        int shift = 0;
+        while (node != null) {
+            if (node instanceof Leaf) {
+                Leaf<K, V> leaf = (Leaf<K, V>) node;
+                return leaf.hash == hash && leaf.key.equals(key) ? leaf.value : null;
+            }
+            if (node instanceof Collision) {
+                Collision<K, V> collision = (Collision<K, V>) node;
+                if (collision.hash != hash) return null;
+                for (Leaf<K, V> leaf : collision.leaves) {
+                    if (leaf.key.equals(key)) return leaf.value;
+                }
+                return null;
+            }
+            Branch branch = (Branch) node;
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((branch.bitmap & bit) == 0) return null;
+            node = branch.children[Integer.bitCount(branch.bitmap & (bit - 1))];
+            shift += BITS;
+        }
+        return null;
+    }
+    
+    /**
+     * @param key a key
+     * @param value a non-null value
+     * @return a map equal to this one except that key maps to value
+     */
+    PersistentMap<K, V> put(K key, V value) {
+        Objects.requireNonNull(value);
+        boolean[] added = new boolean[1];
+        Object newRoot = put(root, 0, new Leaf<>(hash(key), key, value), added);
+        if (newRoot == root) return this;
+        return new PersistentMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+    
+    /**
+     * @param key a key
+     * @return a map equal to this one except that key is absent
+     */
+    PersistentMap<K, V> remove(Object key) {
+        Object newRoot = remove(root, 0, hash(key), key);
+        if (newRoot == root) return this;
+        return newRoot == null ? empty() : new PersistentMap<>(newRoot, size - 1);
+    }
+    
+    /**
+     * Apply an action to every key -> value pair, in no particular order.
+     * 
+     * @param action action to apply
+     */
+    void forEach(BiConsumer<? super K, ? super V> action) {
+        forEach(root, action);
+    }
+    
+    /**
+     * @return a new mutable map with the same contents as this one
+     */
+    Map<K, V> toMap() {
+        Map<K, V> map = new HashMap<>((int) (size / 0.75f) + 1);
+        forEach(map::put);
+        return map;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <K, V> Object put(Object node, int shift, Leaf<K, V> leaf, boolean[] added) {
+        if (node == null) {
+            added[0] = true;
+            return leaf;
+        }
+        if (node instanceof Leaf) {
+            Leaf<K, V> existing = (Leaf<K, V>) node;
+            if (existing.hash == leaf.hash && existing.key.equals(leaf.key)) {
+                return existing.value.equals(leaf.value) ? existing : leaf;
+            }
+            added[0] = true;
+            if (existing.hash == leaf.hash) {
+                Leaf<K, V>[] leaves = (Leaf<K, V>[]) new Leaf<?, ?>[] {existing, leaf};
+                return new Collision<>(leaf.hash, leaves);
+            }
+            return join(existing, existing.hash, leaf, shift);
+        }
+        if (node instanceof Collision) {
+            Collision<K, V> collision = (Collision<K, V>) node;
+            if (collision.hash != leaf.hash) {
+                added[0] = true;
+                return join(collision, collision.hash, leaf, shift);
+            }
+            Leaf<K, V>[] leaves = collision.leaves;
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].key.equals(leaf.key)) {
+                    if (leaves[i].value.equals(leaf.value)) return collision;
+                    Leaf<K, V>[] copy = leaves.clone();
+                    copy[i] = leaf;
+                    return new Collision<>(leaf.hash, copy);
+                }
+            }
+            added[0] = true;
+            Leaf<K, V>[] copy = Arrays.copyOf(leaves, leaves.length + 1);
+            copy[leaves.length] = leaf;
+            return new Collision<>(leaf.hash, copy);
+        }
+        Branch branch = (Branch) node;
+        int bit = 1 << ((leaf.hash >>> shift) & MASK);
+        int index = Integer.bitCount(branch.bitmap & (bit - 1));
+        if ((branch.bitmap & bit) == 0) {
+            added[0] = true;
+            Object[] children = new Object[branch.children.length + 1];
+            System.arraycopy(branch.children, 0, children, 0, index);
+            children[index] = leaf;
+            System.arraycopy(branch.children, index, children, index + 1, branch.children.length - index);
+            return new Branch(branch.bitmap | bit, children);
+        }
+        Object child = branch.children[index];
+        Object newChild = put(child, shift + BITS, leaf, added);
+        if (newChild == child) return branch;
+        Object[] children = branch.children.clone();
+        children[index] = newChild;
+        return new Branch(branch.bitmap, children);
+    }
+    
+    // Builds the smallest subtree holding a node (a Leaf or Collision with
+    // hash nodeHash) and a leaf with a different hash.
+    private static Object join(Object node, int nodeHash, Leaf<?, ?> leaf, int shift) {
+        int nodeIndex = (nodeHash >>> shift) & MASK;
+        int leafIndex = (leaf.hash >>> shift) & MASK;
+        if (nodeIndex == leafIndex) {
+            return new Branch(1 << nodeIndex, new Object[] {join(node, nodeHash, leaf, shift + BITS)});
+        }
+        Object[] children = nodeIndex < leafIndex ? new Object[] {node, leaf} : new Object[] {leaf, node};
+        return new Branch(1 << nodeIndex | 1 << leafIndex, children);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <K, V> Object remove(Object node, int shift, int hash, Object key) {
+        if (node == null) return null;
+        if (node instanceof Leaf) {
+            Leaf<K, V> leaf = (Leaf<K, V>) node;
+            return leaf.hash == hash && leaf.key.equals(key) ? null : leaf;
+        }
+        if (node instanceof Collision) {
+            Collision<K, V> collision = (Collision<K, V>) node;
+            if (collision.hash != hash) return collision;
+            Leaf<K, V>[] leaves = collision.leaves;
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].key.equals(key)) {
+                    if (leaves.length == 2) return leaves[1 - i];
+                    Leaf<K, V>[] copy = (Leaf<K, V>[]) new Leaf<?, ?>[leaves.length - 1];
+                    System.arraycopy(leaves, 0, copy, 0, i);
+                    System.arraycopy(leaves, i + 1, copy, i, leaves.length - i - 1);
+                    return new Collision<>(hash, copy);
+                }
+            }
+            return collision;
+        }
+        Branch branch = (Branch) node;
+        int bit = 1 << ((hash >>> shift) & MASK);
+        if ((branch.bitmap & bit) == 0) return branch;
+        int index = Integer.bitCount(branch.bitmap & (bit - 1));
+        Object child = branch.children[index];
+        Object newChild = remove(child, shift + BITS, hash, key);
+        if (newChild == child) return branch;
+        if (newChild == null) {
+            if (branch.children.length == 1) return null;
+            Object[] children = new Object[branch.children.length - 1];
+            System.arraycopy(branch.children, 0, children, 0, index);
+            System.arraycopy(branch.children, index + 1, children, index, children.length - index);
+            // a lone leaf or collision can move up; lookups check full hashes
+            if (children.length == 1 && !(children[0] instanceof Branch)) return children[0];
+            return new Branch(branch.bitmap & ~bit, children);
+        }
+        if (branch.children.length == 1 && !(newChild instanceof Branch)) return newChild;
+        Object[] children = branch.children.clone();
+        children[index] = newChild;
+        return new Branch(branch.bitmap, children);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <K, V> void forEach(Object node, BiConsumer<? super K, ? super V> action) {
+        if (node == null) return;
+        if (node instanceof Leaf) {
+            Leaf<K, V> leaf = (Leaf<K, V>) node;
+            action.accept(leaf.key, leaf.value);
+        } else if (node instanceof Collision) {
+            for (Leaf<K, V> leaf : ((Collision<K, V>) node).leaves) {
+                action.accept(leaf.key, leaf.value);
+            }
+        } else {
+            for (Object child : ((Branch) node).children) {
+                forEach(child, action);
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
@@ -0,0 +1,31 @@
+package graph;
+
+import java.util.function.Function;
+
+/**
+ * A channel to the shards of a {@link PartitionedGraph}.
+ * Each shard holds its own backend graph; callers never touch a backend
+ * directly, they ship an operation to the shard and get its result back.
+ * 
+ * @param <L> type of vertex labels in the shards, must be immutable
+ */
+public interface ShardTransport<L> {
+    
+    /**
+     * @return the number of shards reachable through this transport, at least 1
+     */
+    public int shardCount();
+    
+    /**
+     * Run an operation against one shard's backend graph.
+     * Operations on the same shard are applied one at a time.
+     * 
+     * @param <R> type of the operation's result
+     * @param shard index of the shard, 0 <= shard < shardCount()
+     * @param operation operation to apply to the shard's backend; must not
+     *        retain references to the backend after it returns
+     * @return the result of the operation
+     */
+    public <R> R call(int shard, Function<Graph<L>, R> operation);
+    
+}
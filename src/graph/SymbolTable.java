@@ -0,0 +1,247 @@
+package graph;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A process-wide table of canonical strings (symbols), shared by every graph
+ * and poet in the JVM.
+ * 
+ * <p>{@link #intern(String)} returns one canonical instance per distinct
+ * string, so a vocabulary stored by many graphs is stored once, and equal
+ * labels are usually the same object (String.equals then succeeds on its
+ * identity check). Each symbol also has an int ID, stable for as long as the
+ * symbol is in use. The table holds its symbols weakly: a symbol no longer
+ * referenced anywhere else is reclaimed by the garbage collector, and its ID
+ * is then free for a later symbol, so IDs stay below the largest number of
+ * symbols ever in use at once. An ID is therefore only meaningful while its
+ * symbol is in use.
+ * 
+ * <p>Interning belongs where labels enter a graph or model. Code that only
+ * asks whether a string is known, such as a query, should use
+ * {@link #lookup(String)}, which never adds to the table.
+ * 
+ * <p>All methods are thread-safe and lock-free on the lookup path.
+ */
+public final class SymbolTable {
+    
+    private static final ConcurrentHashMap<Object, Symbol> BY_NAME = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, Symbol> BY_ID = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<String> RECLAIMED = new ReferenceQueue<>();
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+    private static final ConcurrentLinkedQueue<Integer> FREE_IDS = new ConcurrentLinkedQueue<>();
+    
+    // Abstraction function:
+    //   Represents the set of live symbols { s.get() | s in BY_NAME.values(),
+    //   s.get() != null }, where symbol s.get() has ID s.id.
+    // Representation invariant:
+    //   - Every Symbol is its own key in BY_NAME and is mapped from its id in
+    //     BY_ID; no two live symbols are equal strings or share an id.
+    //   - A Symbol whose string has been collected is either in RECLAIMED or
+    //     already removed from both maps.
+    //   - NEXT_ID is greater than every ID in use; FREE_IDS holds IDs below it
+    //     that no symbol in BY_ID has, each at most once.
+    // Safety from rep exposure:
+    //   - All fields are private; only Strings (immutable) and ints leave.
+    // Thread safety argument:
+    //   - Both maps are ConcurrentHashMaps, and new symbols are published with
+    //     putIfAbsent, so two threads interning equal strings agree on one
+    //     canonical instance. IDs come from a lock-free queue of freed IDs,
+    //     then from an AtomicInteger; an ID is freed only by the one thread
+    //     that polled its Symbol from RECLAIMED, or that lost the race to
+    //     publish a new Symbol with it.
+    
+    private SymbolTable() {
+        throw new AssertionError("not instantiable");
+    }
+    
+    /**
+     * A weak reference to a canonical string, keyed by the string's contents.
+     */
+    private static final class Symbol extends WeakReference<String> {
+        final int hash;
+        final int id;
+        
+        Symbol(String name, int id) {
+            super(name, RECLAIMED);
+            this.hash = name.hashCode();
+            this.id = id;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) return true;
+            String name = get();
+            if (name == null) return false;
+            if (obj instanceof Symbol) return name.equals(((Symbol) obj).get());
+            return obj instanceof Lookup && name.equals(((Lookup) obj).name);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+    
+    /**
+     * A strong, short-lived key for looking a string up in BY_NAME.
+     */
+    private static final class Lookup {
+        final String name;
+        
+        Lookup(String name) {
+            this.name = name;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Symbol && name.equals(((Symbol) obj).get());
+        }
+        
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+    
+    // Drops the symbols whose strings have been collected.
+    private static void expunge() {
+        Reference<? extends String> reclaimed;
+        while ((reclaimed = RECLAIMED.poll()) != null) {
+            Symbol symbol = (Symbol) reclaimed;
+            BY_NAME.remove(symbol, symbol);
+            BY_ID.remove(symbol.id, symbol);
+            FREE_IDS.add(symbol.id);
+        }
+    }
+    
+    // Returns an ID no symbol has, reusing a freed one if there is any.
+    private static int newId() {
+        Integer free = FREE_IDS.poll();
+        if (free != null) return free;
+        int id = NEXT_ID.getAndUpdate(next -> next == Integer.MAX_VALUE ? next : next + 1);
+        if (id == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many symbols in use at once.");
+        }
+        return id;
+    }
+    
+    // Returns the live symbol for name, creating it if needed; canonical
+    // receives its string, which the caller must hold while using the symbol.
+    private static Symbol symbol(String name, String[] canonical) {
+        expunge();
+        Lookup lookup = new Lookup(name);
+        while (true) {
+            Symbol existing = BY_NAME.get(lookup);
+            if (existing == null) {
+                Symbol created = new Symbol(name, newId());
+                existing = BY_NAME.putIfAbsent(created, created);
+                if (existing == null) {
+                    BY_ID.put(created.id, created);
+                    canonical[0] = name;
+                    return created;
+                }
+                // another thread published name first; clearing keeps the
+                // unused symbol out of RECLAIMED, so its ID is freed only here
+                created.clear();
+                FREE_IDS.add(created.id);
+            }
+            String live = existing.get();
+            if (live != null) {
+                canonical[0] = live;
+                return existing;
+            }
+            BY_NAME.remove(existing, existing); // collected since the lookup; retry
+        }
+    }
+    
+    /**
+     * @param name a string
+     * @return the canonical string equal to name; name itself if no equal
+     *         string was in use
+     */
+    public static String intern(String name) {
+        String[] canonical = new String[1];
+        symbol(name, canonical);
+        return canonical[0];
+    }
+    
+    /**
+     * Intern a vertex label if it is a string.
+     * 
+     * @param <L> type of the label
+     * @param label a label
+     * @return the canonical string equal to label if label is a String,
+     *         otherwise label itself
+     */
+    @SuppressWarnings("unchecked")
+    public static <L> L intern(L label) {
+        return label instanceof String ? (L) intern((String) label) : label;
+    }
+    
+    /**
+     * @param name a string
+     * @return the canonical form of name with case folded: the canonical
+     *         string equal to name.toLowerCase(Locale.ROOT)
+     */
+    public static String fold(String name) {
+        return intern(name.toLowerCase(Locale.ROOT));
+    }
+    
+    /**
+     * @param name a string
+     * @return the ID of the symbol equal to name, interning it if needed; the
+     *         same for every equal string while the symbol stays in use
+     */
+    public static int id(String name) {
+        String[] canonical = new String[1];
+        int id = symbol(name, canonical).id;
+        Reference.reachabilityFence(canonical[0]);
+        return id;
+    }
+    
+    /**
+     * Find the canonical string equal to a string without interning it. The
+     * table is not changed, so this is safe to call for every word of
+     * arbitrary input.
+     * 
+     * @param name a string
+     * @return the canonical string equal to name, or null if no equal string
+     *         is interned (or it is no longer in use)
+     */
+    public static String lookup(String name) {
+        Symbol symbol = BY_NAME.get(new Lookup(name));
+        return symbol == null ? null : symbol.get();
+    }
+    
+    /**
+     * @param id a symbol ID
+     * @return the canonical string with that ID, or null if there is none (or
+     *         it is no longer in use)
+     */
+    public static String lookup(int id) {
+        Symbol symbol = BY_ID.get(id);
+        return symbol == null ? null : symbol.get();
+    }
+    
+    /**
+     * @return the number of IDs ever handed out, an upper bound on every ID
+     */
+    static int issuedIds() {
+        return NEXT_ID.get();
+    }
+    
+    /**
+     * @return the number of symbols currently in the table, including any
+     *         collected but not yet expunged
+     */
+    public static int size() {
+        expunge();
+        return BY_NAME.size();
+    }
+}
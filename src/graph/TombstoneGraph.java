@@ -0,0 +1,207 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A Graph wrapper whose vertex removal is O(1): a removed vertex is only
+ * marked with a tombstone and filtered out of every observer, while its edges
+ * stay in the wrapped graph until a compaction pass reclaims them.
+ * 
+ * <p>{@link #compact()} reclaims every pending tombstone, and
+ * {@link #compact(int)} the oldest few, so the cost can be spread out.
+ * Compaction hands the whole batch to the wrapped graph's
+ * {@link BulkRemovable#removeAll(Collection) removeAll} when it has one, so
+ * pruning thousands of vertices costs one pass over the wrapped graph rather
+ * than one pass per vertex. {@link #compactor(int)} packages an incremental
+ * pass as a task for a background executor; all methods are synchronized, so
+ * the task may run concurrently with other callers.
+ * 
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class TombstoneGraph<L> implements BulkRemovable<L> {
+    
+    private final Graph<L> delegate;
+    private final Set<L> live;
+    private final Set<L> tombstones = new LinkedHashSet<>();
+    
+    // Abstraction function:
+    //   Represents the graph whose vertices are live, and whose edges are
+    //   the edges of delegate between two live vertices.
+    // Representation invariant:
+    //   - live and tombstones are disjoint, and their union is exactly the
+    //     vertex set of delegate.
+    // Safety from rep exposure:
+    //   - All fields are private and final; observers return fresh sets and
+    //     maps. The wrapped graph belongs to this wrapper from construction
+    //     on and must not be used directly.
+    
+    /**
+     * Wrap a graph.
+     * 
+     * @param delegate graph to wrap; the wrapper takes ownership of it
+     */
+    public TombstoneGraph(Graph<L> delegate) {
+        this.delegate = delegate;
+        this.live = new HashSet<>(delegate.vertices());
+        checkRep();
+    }
+    
+    // Checks the cheap part of the rep invariant; comparing with
+    // delegate.vertices() would cost O(V) per operation.
+    private void checkRep() {
+        assert tombstones.isEmpty() || !live.contains(tombstones.iterator().next());
+    }
+    
+    /**
+     * @return the number of removed vertices whose edges are not yet reclaimed
+     */
+    public synchronized int pending() {
+        return tombstones.size();
+    }
+    
+    // Reclaims the given tombstoned vertices from the delegate.
+    private void purge(Collection<L> dead) {
+        if (dead.isEmpty()) return;
+        if (delegate instanceof BulkRemovable) {
+            ((BulkRemovable<L>) delegate).removeAll(dead);
+        } else {
+            for (L vertex : dead) {
+                delegate.remove(vertex);
+            }
+        }
+        tombstones.removeAll(dead);
+    }
+    
+    // Reclaims one vertex now, so that it can be used again.
+    private void purge(L vertex) {
+        if (tombstones.contains(vertex)) {
+            purge(List.of(vertex));
+        }
+    }
+    
+    /**
+     * Reclaim the edges of every removed vertex.
+     */
+    public synchronized void compact() {
+        purge(new ArrayList<>(tombstones));
+        checkRep();
+    }
+    
+    /**
+     * Reclaim the edges of the longest-removed vertices.
+     * 
+     * @param maxVertices most vertices to reclaim, at least 1
+     * @return the number of removed vertices still pending afterwards
+     */
+    public synchronized int compact(int maxVertices) {
+        if (maxVertices < 1) throw new IllegalArgumentException("Batch size must be positive.");
+        List<L> batch = new ArrayList<>(Math.min(maxVertices, tombstones.size()));
+        Iterator<L> oldest = tombstones.iterator();
+        while (oldest.hasNext() && batch.size() < maxVertices) {
+            batch.add(oldest.next());
+        }
+        purge(batch);
+        checkRep();
+        return tombstones.size();
+    }
+    
+    /**
+     * Package an incremental compaction pass as a task, for example to run
+     * periodically on a ScheduledExecutorService.
+     * 
+     * @param maxVertices most vertices to reclaim per run, at least 1
+     * @return a task that calls compact(maxVertices) each time it runs
+     */
+    public Runnable compactor(int maxVertices) {
+        if (maxVertices < 1) throw new IllegalArgumentException("Batch size must be positive.");
+        return () -> compact(maxVertices);
+    }
+    
+    @Override
+    public synchronized boolean add(L vertex) {
+        if (live.contains(vertex)) return false;
+        purge(vertex);
+        live.add(vertex);
+        delegate.add(vertex);
+        checkRep();
+        return true;
+    }
+    
+    @Override
+    public synchronized int set(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight must be non-negative.");
+        if (weight == 0 && !(live.contains(source) && live.contains(target))) {
+            return 0; // no such edge, and nothing to add
+        }
+        purge(source);
+        purge(target);
+        live.add(source);
+        live.add(target);
+        int previous = delegate.set(source, target, weight);
+        checkRep();
+        return previous;
+    }
+    
+    @Override
+    public synchronized boolean remove(L vertex) {
+        if (!live.remove(vertex)) return false;
+        tombstones.add(vertex);
+        checkRep();
+        return true;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>Costs O(number of labels); the edges are reclaimed by compaction.
+     */
+    @Override
+    public synchronized boolean removeAll(Collection<? extends L> vertices) {
+        boolean removed = false;
+        for (L vertex : vertices) {
+            if (live.remove(vertex)) {
+                tombstones.add(vertex);
+                removed = true;
+            }
+        }
+        checkRep();
+        return removed;
+    }
+    
+    @Override
+    public synchronized Set<L> vertices() {
+        return new HashSet<>(live);
+    }
+    
+    @Override
+    public synchronized Map<L, Integer> sources(L target) {
+        if (!live.contains(target)) return new HashMap<>();
+        return withoutTombstones(delegate.sources(target));
+    }
+    
+    @Override
+    public synchronized Map<L, Integer> targets(L source) {
+        if (!live.contains(source)) return new HashMap<>();
+        return withoutTombstones(delegate.targets(source));
+    }
+    
+    private Map<L, Integer> withoutTombstones(Map<L, Integer> neighbors) {
+        if (!tombstones.isEmpty()) {
+            neighbors.keySet().removeIf(tombstones::contains);
+        }
+        return neighbors;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return delegate + "\nTombstones: " + tombstones;
+    }
+}
@@ -0,0 +1,250 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A Graph that publishes every change as a new immutable version, so that
+ * readers see a consistent point-in-time graph without taking locks while a
+ * writer keeps updating it.
+ * 
+ * <p>Versions are {@link GraphSnapshot GraphSnapshots} built on persistent
+ * maps: publishing a change copies only the trie paths it touches and shares
+ * the rest with the previous version. Writers are serialized; readers either
+ * call the Graph observers, which each read the latest version, or take a
+ * {@link #snapshot()} and read it for as long as they need one consistent
+ * view. A version that is no longer current and no longer held by any reader
+ * is ordinary garbage and is reclaimed by the collector.
+ * 
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class VersionedGraph<L> implements BulkLoadable<L>, BulkRemovable<L> {
+    
+    private volatile GraphSnapshot<L> current;
+    private final Object writeLock = new Object();
+    
+    // Abstraction function:
+    //   Represents the graph `current`; older snapshots are past versions of it.
+    // Representation invariant:
+    //   - current is non-null, and its version only increases.
+    // Safety from rep exposure:
+    //   - current is private; snapshots handed out are immutable.
+    // Thread safety argument:
+    //   - current is volatile and only replaced, under writeLock, by a fully
+    //     built snapshot, so readers see either the old or the new version.
+    //   - Writers hold writeLock while reading current and publishing its
+    //     successor, so no update is lost.
+    
+    /**
+     * Create an empty graph at version 0.
+     */
+    public VersionedGraph() {
+        this.current = new GraphSnapshot<>(0, PersistentMap.empty(), PersistentMap.empty());
+        checkRep();
+    }
+    
+    /**
+     * Create a graph whose version 0 is a copy of another graph.
+     * 
+     * @param initial graph to copy
+     */
+    public VersionedGraph(Graph<L> initial) {
+        Draft draft = new Draft(new GraphSnapshot<>(0, PersistentMap.empty(), PersistentMap.empty()));
+        for (L vertex : initial.vertices()) {
+            draft.add(vertex);
+            for (Map.Entry<L, Integer> edge : initial.targets(vertex).entrySet()) {
+                draft.set(vertex, edge.getKey(), edge.getValue());
+            }
+        }
+        this.current = new GraphSnapshot<>(0, draft.out, draft.in);
+        checkRep();
+    }
+    
+    private void checkRep() {
+        assert current != null;
+    }
+    
+    /**
+     * @return the current version; it never changes, however the graph is
+     *         updated afterwards
+     */
+    public GraphSnapshot<L> snapshot() {
+        return current;
+    }
+    
+    /**
+     * Apply a batch of changes and publish them as one new version.
+     * Readers see either none or all of the batch.
+     * 
+     * @param batch changes to apply to a draft of the next version; the draft
+     *        must not be used after batch returns
+     */
+    public void update(Consumer<? super Graph<L>> batch) {
+        synchronized (writeLock) {
+            Draft draft = new Draft(current);
+            batch.accept(draft);
+            if (draft.changed) {
+                current = new GraphSnapshot<>(current.version() + 1, draft.out, draft.in);
+            }
+            checkRep();
+        }
+    }
+    
+    @Override
+    public boolean add(L vertex) {
+        boolean[] added = new boolean[1];
+        update(draft -> added[0] = draft.add(vertex));
+        return added[0];
+    }
+    
+    @Override
+    public int set(L source, L target, int weight) {
+        int[] previous = new int[1];
+        update(draft -> previous[0] = draft.set(source, target, weight));
+        return previous[0];
+    }
+    
+    @Override
+    public boolean remove(L vertex) {
+        boolean[] removed = new boolean[1];
+        update(draft -> removed[0] = draft.remove(vertex));
+        return removed[0];
+    }
+    
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>The whole batch is published as one new version.
+     */
+    @Override
+    public boolean removeAll(Collection<? extends L> vertices) {
+        boolean[] removed = new boolean[1];
+        update(draft -> {
+            for (L vertex : vertices) {
+                removed[0] |= draft.remove(vertex);
+            }
+        });
+        return removed[0];
+    }
+    
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>The whole batch is published as one new version.
+     */
+    @Override
+    public void load(Map<L, Map<L, Integer>> adjacency, GraphBuilder.Duplicates duplicates) {
+        update(draft -> GraphBuilder.setAll(draft, adjacency, duplicates));
+    }
+    
+    @Override
+    public Set<L> vertices() {
+        return current.vertices();
+    }
+    
+    @Override
+    public Map<L, Integer> sources(L target) {
+        return current.sources(target);
+    }
+    
+    @Override
+    public Map<L, Integer> targets(L source) {
+        return current.targets(source);
+    }
+    
+    @Override
+    public String toString() {
+        return current.toString();
+    }
+    
+    /**
+     * The next version under construction. Starts from a published snapshot
+     * and replaces whole persistent maps, so the snapshot is never modified.
+     */
+    private class Draft implements Graph<L> {
+        
+        private PersistentMap<L, PersistentMap<L, Integer>> out;
+        private PersistentMap<L, PersistentMap<L, Integer>> in;
+        private boolean changed = false;
+        
+        // Abstraction function, rep invariant: as for GraphSnapshot; changed
+        //   is true iff out or in differs from the base snapshot.
+        
+        Draft(GraphSnapshot<L> base) {
+            this.out = base.out();
+            this.in = base.in();
+        }
+        
+        @Override
+        public boolean add(L vertex) {
+            if (out.containsKey(vertex)) return false;
+            vertex = SymbolTable.intern(vertex);
+            out = out.put(vertex, PersistentMap.empty());
+            in = in.put(vertex, PersistentMap.empty());
+            changed = true;
+            return true;
+        }
+        
+        @Override
+        public int set(L source, L target, int weight) {
+            if (weight < 0) throw new IllegalArgumentException("Weight must be non-negative.");
+            Integer previous = GraphSnapshot.row(out, source).get(target);
+            if (weight == 0) {
+                if (previous == null) return 0;
+                out = out.put(source, out.get(source).remove(target));
+                in = in.put(target, in.get(target).remove(source));
+            } else {
+                source = SymbolTable.intern(source);
+                target = SymbolTable.intern(target);
+                add(source);
+                add(target);
+                out = out.put(source, out.get(source).put(target, weight));
+                in = in.put(target, in.get(target).put(source, weight));
+            }
+            changed = true;
+            return previous == null ? 0 : previous;
+        }
+        
+        @Override
+        public boolean remove(L vertex) {
+            PersistentMap<L, Integer> targets = out.get(vertex);
+            if (targets == null) return false;
+            List<L> neighbors = new ArrayList<>();
+            targets.forEach((target, weight) -> neighbors.add(target));
+            for (L target : neighbors) {
+                in = in.put(target, in.get(target).remove(vertex));
+            }
+            neighbors.clear();
+            in.get(vertex).forEach((source, weight) -> neighbors.add(source));
+            for (L source : neighbors) {
+                out = out.put(source, out.get(source).remove(vertex));
+            }
+            out = out.remove(vertex);
+            in = in.remove(vertex);
+            changed = true;
+            return true;
+        }
+        
+        @Override
+        public Set<L> vertices() {
+            Set<L> vertices = new HashSet<>();
+            out.forEach((vertex, targets) -> vertices.add(vertex));
+            return vertices;
+        }
+        
+        @Override
+        public Map<L, Integer> sources(L target) {
+            return GraphSnapshot.row(in, target).toMap();
+        }
+        
+        @Override
+        public Map<L, Integer> targets(L source) {
+            return GraphSnapshot.row(out, source).toMap();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package graph;
+
+import java.util.Objects;
+
+/**
+ * An immutable (source, target, weight) triple, the unit of input to a
+ * {@link GraphBuilder}.
+ * 
+ * @param <L> type of vertex labels, must be immutable
+ */
+public final class WeightedEdge<L> {
+    
+    private final L source;
+    private final L target;
+    private final int weight;
+    
+    // Abstraction function:
+    //   Represents the directed edge source -> target with the given weight.
+    // Representation invariant:
+    //   - source and target are non-null; weight >= 0.
+    // Safety from rep exposure:
+    //   - All fields are private, final, and immutable.
+    
+    /**
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param weight nonnegative weight of the edge
+     */
+    public WeightedEdge(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight must be non-negative.");
+        this.source = Objects.requireNonNull(source);
+        this.target = Objects.requireNonNull(target);
+        this.weight = weight;
+        checkRep();
+    }
+    
+    private void checkRep() {
+        assert source != null && target != null;
+        assert weight >= 0;
+    }
+    
+    public L getSource() {
+        return source;
+    }
+    
+    public L getTarget() {
+        return target;
+    }
+    
+    public int getWeight() {
+        return weight;
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof WeightedEdge)) return false;
+        WeightedEdge<?> that = (WeightedEdge<?>) obj;
+        return source.equals(that.source) && target.equals(that.target) && weight == that.weight;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(source, target, weight);
+    }
+    
+    @Override
+    public String toString() {
+        return source + " -> " + target + " (weight: " + weight + ")";
+    }
+}
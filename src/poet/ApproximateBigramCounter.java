@@ -0,0 +1,225 @@
+package poet;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import graph.Graph;
+import graph.GraphBuilder;
+
+/**
+ * Approximate pair counting for corpora too large, or too unbounded, to count
+ * exactly. Memory stays fixed however much text is fed.
+ * 
+ * <p>Every adjacent pair is counted in a {@link CountMinSketch}, whose
+ * estimates never fall below the true count and exceed it by at most epsilon
+ * times the number of pairs seen, except with probability delta. Only the
+ * heaviest pairs are kept as edges: at most maxEdges overall and at most
+ * maxEdgesPerVertex leaving any one word. When the edge limit is exceeded the
+ * lightest quarter of the edges is dropped, and from then on a pair must
+ * outweigh the dropped ones to be tracked again.
+ * 
+ * <p>A counter is fed one corpus; pass a fresh one to each GraphPoet. Pairs
+ * are keyed by a 64-bit hash of both words, so distinct pairs share a count
+ * only through the sketch's bounded error (or a 64-bit collision).
+ */
+public class ApproximateBigramCounter implements BigramCounter {
+    
+    // rough heap cost of one tracked edge: map entry, boxed count, and its
+    // share of the word's target map
+    private static final int BYTES_PER_EDGE = 96;
+    
+    private final CountMinSketch sketch;
+    private final int maxEdges;
+    private final int maxEdgesPerVertex;
+    private final Map<String, Map<String, Integer>> heavy = new HashMap<>();
+    private int edges = 0;
+    private int threshold = 0;
+    private String previous = null;
+    
+    // Abstraction function:
+    //   Represents the pair counts of the word sequence fed to add(), as
+    //   estimated by sketch, together with the heaviest pairs heavy.get(w1)
+    //   .get(w2) == estimate of (w1, w2) as of its last occurrence. previous
+    //   is the last word fed, or null if none.
+    // Representation invariant:
+    //   - edges is the total size of the maps in heavy, edges <= maxEdges, and
+    //     no map in heavy is empty or larger than maxEdgesPerVertex.
+    //   - Every tracked weight is > 0; threshold >= 0.
+    //   - maxEdges >= 1 and maxEdgesPerVertex >= 1.
+    // Safety from rep exposure:
+    //   - All fields are private; only Strings (immutable) leave the counter.
+    
+    /**
+     * Create a counter with the given error bound and edge limits.
+     * 
+     * @param epsilon relative error of the pair estimates, in (0, 1)
+     * @param delta probability of exceeding that error, in (0, 1)
+     * @param maxEdges most edges kept overall, at least 1
+     * @param maxEdgesPerVertex most edges kept leaving any one word, at least 1
+     */
+    public ApproximateBigramCounter(double epsilon, double delta, int maxEdges, int maxEdgesPerVertex) {
+        if (maxEdges < 1 || maxEdgesPerVertex < 1) {
+            throw new IllegalArgumentException("Edge limits must be positive.");
+        }
+        this.sketch = CountMinSketch.forError(epsilon, delta);
+        this.maxEdges = maxEdges;
+        this.maxEdgesPerVertex = maxEdgesPerVertex;
+        checkRep();
+    }
+    
+    /**
+     * Create a counter that fits a memory budget, split evenly between the
+     * sketch and the tracked edges. The sketch is as wide as its half of the
+     * budget allows, so epsilon shrinks as the budget grows.
+     * 
+     * @param bytes memory budget in bytes, at least 64 KiB
+     * @param delta probability of exceeding the error bound, in (0, 1)
+     * @param maxEdgesPerVertex most edges kept leaving any one word, at least 1
+     * @return a new counter
+     */
+    public static ApproximateBigramCounter withMemoryBudget(long bytes, double delta, int maxEdgesPerVertex) {
+        if (bytes < 64 * 1024) throw new IllegalArgumentException("Memory budget too small.");
+        if (!(delta > 0 && delta < 1)) throw new IllegalArgumentException("Delta must lie in (0, 1).");
+        int depth = (int) Math.ceil(Math.log(1 / delta));
+        long width = Math.min(bytes / 2 / 4 / depth, Integer.MAX_VALUE / depth);
+        int maxEdges = (int) Math.min(bytes / 2 / BYTES_PER_EDGE, Integer.MAX_VALUE);
+        return new ApproximateBigramCounter(Math.E / width, delta, maxEdges, maxEdgesPerVertex);
+    }
+    
+    private void checkRep() {
+        assert 0 <= edges && edges <= maxEdges;
+        assert maxEdges >= 1 && maxEdgesPerVertex >= 1;
+        assert threshold >= 0;
+    }
+    
+    @Override
+    public void add(String word) {
+        if (previous != null) {
+            count(previous, word);
+        }
+        previous = word;
+    }
+    
+    // A 64-bit hash of the pair, over every char of both words (the length of
+    // w1 first, so the split between them counts). String.hashCode would make
+    // pairs of colliding words, such as "Aa" and "BB", share a key and so
+    // always share a count, whatever the sketch's own hashing.
+    static long pairKey(String w1, String w2) {
+        long h = 0xcbf29ce484222325L; // 64-bit FNV-1a, one char at a time
+        h = (h ^ w1.length()) * 0x100000001b3L;
+        for (int i = 0; i < w1.length(); i++) {
+            h = (h ^ w1.charAt(i)) * 0x100000001b3L;
+        }
+        for (int i = 0; i < w2.length(); i++) {
+            h = (h ^ w2.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33; // finalizer, so every char reaches every bit
+        h *= 0xff51afd7ed558ccdL;
+        return h ^ h >>> 33;
+    }
+    
+    private void count(String w1, String w2) {
+        int estimate = sketch.add(pairKey(w1, w2));
+        Map<String, Integer> targets = heavy.get(w1);
+        if (targets != null && targets.containsKey(w2)) {
+            targets.put(w2, estimate);
+            return;
+        }
+        if (estimate <= threshold) return;
+        
+        if (targets == null) {
+            targets = new HashMap<>();
+            heavy.put(w1, targets);
+        }
+        targets.put(w2, estimate);
+        edges++;
+        if (targets.size() > maxEdgesPerVertex) {
+            dropLightest(targets);
+        }
+        if (edges > maxEdges) {
+            prune();
+        }
+    }
+    
+    // Drops the lightest edge of one word.
+    private void dropLightest(Map<String, Integer> targets) {
+        String lightest = null;
+        int weight = Integer.MAX_VALUE;
+        for (Map.Entry<String, Integer> entry : targets.entrySet()) {
+            if (entry.getValue() < weight) {
+                lightest = entry.getKey();
+                weight = entry.getValue();
+            }
+        }
+        targets.remove(lightest);
+        edges--;
+    }
+    
+    // Drops the lightest quarter of all edges and raises the bar for new ones.
+    private void prune() {
+        int[] weights = new int[edges];
+        int n = 0;
+        for (Map<String, Integer> targets : heavy.values()) {
+            for (int weight : targets.values()) {
+                weights[n++] = weight;
+            }
+        }
+        Arrays.sort(weights);
+        int keep = Math.max(1, maxEdges * 3 / 4);
+        int cutoff = weights[edges - keep];
+        
+        Iterator<Map<String, Integer>> rows = heavy.values().iterator();
+        while (rows.hasNext()) {
+            Map<String, Integer> targets = rows.next();
+            Iterator<Integer> row = targets.values().iterator();
+            while (row.hasNext()) {
+                int weight = row.next();
+                if (weight < cutoff || (weight == cutoff && edges > keep)) {
+                    row.remove();
+                    edges--;
+                }
+            }
+            if (targets.isEmpty()) {
+                rows.remove();
+            }
+        }
+        threshold = Math.max(threshold, cutoff);
+        checkRep();
+    }
+    
+    /**
+     * @return the number of edges currently kept
+     */
+    public int edgeCount() {
+        return edges;
+    }
+    
+    /**
+     * @return the approximate heap footprint of this counter in bytes, fixed
+     *         at construction
+     */
+    public long footprint() {
+        return sketch.footprint() + (long) maxEdges * BYTES_PER_EDGE;
+    }
+    
+    @Override
+    public void flushTo(Graph<String> graph) {
+        GraphBuilder<String> builder = new GraphBuilder<>(GraphBuilder.Duplicates.SUM, edges, heavy.size());
+        for (Map.Entry<String, Map<String, Integer>> row : heavy.entrySet()) {
+            for (Map.Entry<String, Integer> edge : row.getValue().entrySet()) {
+                builder.add(row.getKey(), edge.getKey(), edge.getValue());
+            }
+        }
+        builder.buildInto(graph);
+        if (edges == 0 && previous != null) {
+            graph.add(previous); // keep a one-word corpus's word
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return edges + " of at most " + maxEdges + " edges, " + sketch;
+    }
+}
@@ -0,0 +1,27 @@
+package poet;
+
+import graph.Graph;
+
+/**
+ * Accumulates the adjacent word pairs of a corpus as it is read, and writes
+ * the resulting affinity counts into a Graph when the corpus is done.
+ */
+interface BigramCounter {
+    
+    /**
+     * Feed the next word of the corpus, counting the pair it forms with the
+     * word fed before it.
+     * 
+     * @param word next word, already case-folded
+     */
+    public void add(String word);
+    
+    /**
+     * Write the counted words and pairs into a graph: the edge w1 -> w2 gains
+     * the (possibly estimated) number of times w1 was followed by w2.
+     * 
+     * @param graph graph to write into
+     */
+    public void flushTo(Graph<String> graph);
+    
+}
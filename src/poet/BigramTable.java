@@ -0,0 +1,100 @@
+package poet;
+
+import graph.Graph;
+import graph.GraphBuilder;
+
+/**
+ * Counts the adjacent word pairs of a corpus while it is read, then writes the
+ * counts into a Graph in one bulk pass.
+ * 
+ * <p>Each distinct word gets a dense int ID from a {@link Vocabulary}, which
+ * may be shared with other tables counting the same corpus; a pair of IDs is
+ * packed into one long and counted in a primitive open-addressing table, so
+ * counting a pair costs one probe and no allocation.
+ */
+class BigramTable implements BigramCounter {
+    
+    private final Vocabulary vocabulary;
+    private final LongIntHashTable counts;
+    private int previous = -1;
+    
+    // Abstraction function:
+    //   Represents the counts of adjacent pairs in the word sequence fed to
+    //   add(): the pair (vocabulary.word(a), vocabulary.word(b)) was seen
+    //   counts.get(pair(a, b)) times. previous is the ID of the last word fed,
+    //   or -1 if none.
+    // Representation invariant:
+    //   - Every key of counts is pair(a, b) with a, b < vocabulary.size(), and
+    //     every count is positive.
+    //   - -1 <= previous < vocabulary.size().
+    // Safety from rep exposure:
+    //   - All fields are private; only Strings (immutable) leave the table.
+    //     vocabulary is shared with the caller by design, and only grows.
+    
+    /**
+     * Create an empty table with its own vocabulary.
+     * 
+     * @param expectedPairs number of distinct pairs expected
+     */
+    BigramTable(int expectedPairs) {
+        this(expectedPairs, new Vocabulary());
+    }
+    
+    /**
+     * Create an empty table.
+     * 
+     * @param expectedPairs number of distinct pairs expected
+     * @param vocabulary vocabulary to take word IDs from, which may be shared
+     */
+    BigramTable(int expectedPairs, Vocabulary vocabulary) {
+        this.vocabulary = vocabulary;
+        counts = new LongIntHashTable(expectedPairs);
+        checkRep();
+    }
+    
+    // Checks the last word fed; counts are only ever incremented.
+    private void checkRep() {
+        assert -1 <= previous && previous < vocabulary.size();
+    }
+    
+    private static long pair(int first, int second) {
+        return (long) first << 32 | second;
+    }
+    
+    @Override
+    public void add(String word) {
+        int id = vocabulary.id(word);
+        if (previous >= 0) {
+            counts.increment(pair(previous, id), 1);
+        }
+        previous = id;
+    }
+    
+    /**
+     * @return the number of distinct pairs counted
+     */
+    int size() {
+        return counts.size();
+    }
+    
+    @Override
+    public void flushTo(Graph<String> graph) {
+        GraphBuilder<String> builder = new GraphBuilder<>(GraphBuilder.Duplicates.SUM,
+                counts.size(), vocabulary.size());
+        // sorted keys come out grouped by source
+        for (long key : counts.keys()) {
+            builder.add(vocabulary.word((int) (key >>> 32)), vocabulary.word((int) key), counts.get(key));
+        }
+        builder.buildInto(graph);
+        if (counts.size() == 0) {
+            for (int id = 0; id < vocabulary.size(); id++) {
+                graph.add(vocabulary.word(id)); // a one-word corpus has no pairs
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return vocabulary.size() + " words, " + counts.size() + " pairs";
+    }
+}
@@ -0,0 +1,274 @@
+package poet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import graph.Graph;
+
+/**
+ * A read-only index of an affinity graph for finding bridge words quickly.
+ * 
+ * <p>Words are numbered in lexicographic order, and each word's targets and
+ * sources are stored as sorted ID arrays with parallel weight arrays
+ * (compressed sparse rows). The bridges from w1 to w2 are the intersection of
+ * w1's targets with w2's sources. Lists of similar length are intersected by
+ * a linear merge; when one is much longer, each element of the shorter one is
+ * found in the longer one by galloping (exponential then binary) search, so a
+ * hub word's huge list costs only O(small * log(large / small)).
+ * 
+ * <p>The index is itself a read-only Graph of the edges it holds, so a poet
+ * can keep it in place of the graph it was built from. Mutators throw
+ * UnsupportedOperationException.
+ */
+class BridgeIndex implements Graph<String> {
+    
+    // a longer list at least this many times the shorter one is galloped
+    private static final int GALLOP_RATIO = 16;
+    
+    private final String[] words;
+    private final Map<String, Integer> ids;
+    private final int[] outOffsets;
+    private final int[] outIds;
+    private final int[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inIds;
+    private final int[] inWeights;
+    
+    // Abstraction function:
+    //   Represents the graph with vertices words[0..n-1] and an edge
+    //   words[v] -> words[outIds[k]] of weight outWeights[k] for every
+    //   outOffsets[v] <= k < outOffsets[v + 1]. The in* arrays hold the same
+    //   edges grouped by target instead.
+    // Representation invariant:
+    //   - words is sorted and duplicate-free; ids.get(words[i]) == i.
+    //   - The offset arrays have length n + 1, start at 0, are nondecreasing,
+    //     and end at the length of their ID and weight arrays.
+    //   - Within each row, IDs are strictly increasing; all weights are > 0.
+    //   - The in rows hold exactly the transposed out rows.
+    // Safety from rep exposure:
+    //   - All fields are private and final, and no array or map is returned;
+    //     observers return fresh sets and maps.
+    
+    /**
+     * Index the current contents of a graph.
+     * 
+     * @param graph graph to index; later changes to it are not reflected
+     */
+    BridgeIndex(Graph<String> graph) {
+        List<String> sorted = new ArrayList<>(graph.vertices());
+        Collections.sort(sorted);
+        int n = sorted.size();
+        words = sorted.toArray(new String[n]);
+        ids = new HashMap<>((int) (n / 0.75f) + 1);
+        for (int i = 0; i < n; i++) {
+            ids.put(words[i], i);
+        }
+        
+        // out rows, each sorted by target ID
+        List<int[]> rows = new ArrayList<>(n);
+        outOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            Map<String, Integer> targets = graph.targets(words[v]);
+            long[] row = new long[targets.size()];
+            int k = 0;
+            for (Map.Entry<String, Integer> edge : targets.entrySet()) {
+                row[k++] = (long) ids.get(edge.getKey()) << 32 | edge.getValue();
+            }
+            Arrays.sort(row);
+            int[] packed = new int[2 * row.length];
+            for (k = 0; k < row.length; k++) {
+                packed[2 * k] = (int) (row[k] >>> 32);
+                packed[2 * k + 1] = (int) row[k];
+            }
+            rows.add(packed);
+            outOffsets[v + 1] = outOffsets[v] + row.length;
+        }
+        int edges = outOffsets[n];
+        outIds = new int[edges];
+        outWeights = new int[edges];
+        int[] inCounts = new int[n];
+        for (int v = 0; v < n; v++) {
+            int[] packed = rows.get(v);
+            for (int k = 0; k < packed.length / 2; k++) {
+                outIds[outOffsets[v] + k] = packed[2 * k];
+                outWeights[outOffsets[v] + k] = packed[2 * k + 1];
+                inCounts[packed[2 * k]]++;
+            }
+        }
+        
+        // in rows by transposing; scanning sources in ID order keeps them sorted
+        inOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] = inOffsets[v] + inCounts[v];
+        }
+        inIds = new int[edges];
+        inWeights = new int[edges];
+        int[] next = Arrays.copyOf(inOffsets, n);
+        for (int v = 0; v < n; v++) {
+            for (int k = outOffsets[v]; k < outOffsets[v + 1]; k++) {
+                int slot = next[outIds[k]]++;
+                inIds[slot] = v;
+                inWeights[slot] = outWeights[k];
+            }
+        }
+        checkRep();
+    }
+    
+    private void checkRep() {
+        int n = words.length;
+        assert ids.size() == n;
+        assert outOffsets.length == n + 1 && inOffsets.length == n + 1;
+        assert outOffsets[n] == outIds.length && inOffsets[n] == inIds.length;
+        assert outIds.length == inIds.length;
+    }
+    
+    @Override
+    public boolean add(String vertex) {
+        throw new UnsupportedOperationException("Bridge indexes are read-only.");
+    }
+    
+    @Override
+    public int set(String source, String target, int weight) {
+        throw new UnsupportedOperationException("Bridge indexes are read-only.");
+    }
+    
+    @Override
+    public boolean remove(String vertex) {
+        throw new UnsupportedOperationException("Bridge indexes are read-only.");
+    }
+    
+    @Override
+    public Set<String> vertices() {
+        return new HashSet<>(Arrays.asList(words));
+    }
+    
+    @Override
+    public Map<String, Integer> sources(String target) {
+        return row(target, inOffsets, inIds, inWeights);
+    }
+    
+    @Override
+    public Map<String, Integer> targets(String source) {
+        return row(source, outOffsets, outIds, outWeights);
+    }
+    
+    // A fresh map of the row of word in the given arrays, empty if word is absent.
+    private Map<String, Integer> row(String word, int[] offsets, int[] rowIds, int[] weights) {
+        Map<String, Integer> row = new HashMap<>();
+        Integer id = ids.get(word);
+        if (id == null) return row;
+        for (int k = offsets[id]; k < offsets[id + 1]; k++) {
+            row.put(words[rowIds[k]], weights[k]);
+        }
+        return row;
+    }
+    
+    /**
+     * Find the bridge word between two words.
+     * 
+     * @param w1 a word
+     * @param w2 a word
+     * @return the word b maximizing the weight of w1 -> b -> w2 (the smallest
+     *         such word if several tie), or null if there is no such path
+     */
+    String bridge(String w1, String w2) {
+        Integer source = ids.get(w1);
+        Integer target = ids.get(w2);
+        if (source == null || target == null) return null;
+        
+        int outFrom = outOffsets[source], outTo = outOffsets[source + 1];
+        int inFrom = inOffsets[target], inTo = inOffsets[target + 1];
+        int outSize = outTo - outFrom, inSize = inTo - inFrom;
+        if (outSize == 0 || inSize == 0) return null;
+        
+        int best;
+        if (outSize >= (long) inSize * GALLOP_RATIO) {
+            best = gallop(inIds, inWeights, inFrom, inTo, outIds, outWeights, outFrom, outTo);
+        } else if (inSize >= (long) outSize * GALLOP_RATIO) {
+            best = gallop(outIds, outWeights, outFrom, outTo, inIds, inWeights, inFrom, inTo);
+        } else {
+            best = merge(outIds, outWeights, outFrom, outTo, inIds, inWeights, inFrom, inTo);
+        }
+        return best < 0 ? null : words[best];
+    }
+    
+    // Linear merge of two sorted rows; returns the common ID with the largest
+    // weight sum (the smallest on ties), or -1 if they share none.
+    private static int merge(int[] aIds, int[] aWeights, int a, int aTo,
+                             int[] bIds, int[] bWeights, int b, int bTo) {
+        int best = -1;
+        long bestWeight = 0;
+        while (a < aTo && b < bTo) {
+            int x = aIds[a], y = bIds[b];
+            if (x < y) {
+                a++;
+            } else if (x > y) {
+                b++;
+            } else {
+                long weight = (long) aWeights[a] + bWeights[b];
+                if (weight > bestWeight) {
+                    best = x;
+                    bestWeight = weight;
+                }
+                a++;
+                b++;
+            }
+        }
+        return best;
+    }
+    
+    // As merge, but finds each element of the short row in the long row by
+    // galloping forward from the previous match.
+    private static int gallop(int[] shortIds, int[] shortWeights, int s, int sTo,
+                              int[] longIds, int[] longWeights, int l, int lTo) {
+        int best = -1;
+        long bestWeight = 0;
+        for (; s < sTo && l < lTo; s++) {
+            int key = shortIds[s];
+            l = lowerBound(longIds, l, lTo, key);
+            if (l < lTo && longIds[l] == key) {
+                long weight = (long) shortWeights[s] + longWeights[l];
+                if (weight > bestWeight) {
+                    best = key;
+                    bestWeight = weight;
+                }
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * @return the first index in [from, to) whose value is >= key, or to if
+     *         none; found by doubling the step from `from`, then bisecting
+     */
+    static int lowerBound(int[] sorted, int from, int to, int key) {
+        if (from >= to || sorted[from] >= key) return from;
+        int bound = 1;
+        while (from + bound < to && sorted[from + bound] < key) {
+            bound <<= 1;
+        }
+        // sorted[from + bound / 2] < key, and from + bound is past the answer
+        int lo = from + bound / 2 + 1;
+        int hi = Math.min(from + bound, to);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+    
+    @Override
+    public String toString() {
+        return "BridgeIndex(" + words.length + " words, " + outIds.length + " edges)";
+    }
+}
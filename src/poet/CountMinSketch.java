@@ -0,0 +1,117 @@
+package poet;
+
+/**
+ * A count-min sketch over long keys: a fixed-size table of
+ * counters that estimates how many times each key was added, never
+ * underestimating. With width w and depth d, an estimate exceeds the true
+ * count by more than (e / w) * (total additions) with probability at most
+ * e^-d, however many distinct keys are added.
+ */
+class CountMinSketch {
+    
+    private final int width;
+    private final int depth;
+    private final int[] counters;
+    private final long[] seeds;
+    
+    // Abstraction function:
+    //   Represents a multiset of keys, summarized so that the count of key k
+    //   is estimated by min over rows r of counters[r * width + column(r, k)].
+    // Representation invariant:
+    //   - width >= 1, depth >= 1, counters.length == width * depth,
+    //     seeds.length == depth.
+    //   - Every counter is >= 0.
+    // Safety from rep exposure:
+    //   - All fields are private and final; the arrays are never returned.
+    
+    /**
+     * Create an empty sketch.
+     * 
+     * @param width counters per row, at least 1
+     * @param depth number of rows, at least 1
+     */
+    CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1 || (long) width * depth > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Sketch dimensions out of range.");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counters = new int[width * depth];
+        this.seeds = new long[depth];
+        for (int r = 0; r < depth; r++) {
+            seeds[r] = 0x9e3779b97f4a7c15L * (2 * r + 1);
+        }
+        checkRep();
+    }
+    
+    /**
+     * Create an empty sketch sized for an error bound.
+     * 
+     * @param epsilon relative error, in (0, 1): estimates exceed true counts
+     *        by at most epsilon times the total number of additions...
+     * @param delta ...except with probability at most delta, in (0, 1)
+     * @return a new empty sketch
+     */
+    static CountMinSketch forError(double epsilon, double delta) {
+        if (!(epsilon > 0 && epsilon < 1 && delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException("Error bounds must lie in (0, 1).");
+        }
+        return new CountMinSketch((int) Math.ceil(Math.E / epsilon), (int) Math.ceil(Math.log(1 / delta)));
+    }
+    
+    private void checkRep() {
+        assert width >= 1 && depth >= 1;
+        assert counters.length == width * depth && seeds.length == depth;
+    }
+    
+    private int column(int row, long key) {
+        long h = (key ^ seeds[row]) * 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 29;
+        return (int) ((h >>> 1) % width);
+    }
+    
+    /**
+     * Count one more occurrence of a key. Uses conservative update: only the
+     * counters that hold the current minimum are raised, which tightens later
+     * estimates without ever letting them fall below the true count.
+     * 
+     * @param key a key
+     * @return the new estimate for key
+     */
+    int add(long key) {
+        int estimate = estimate(key);
+        if (estimate == Integer.MAX_VALUE) return estimate;
+        for (int r = 0; r < depth; r++) {
+            int i = r * width + column(r, key);
+            if (counters[i] == estimate) {
+                counters[i]++;
+            }
+        }
+        return estimate + 1;
+    }
+    
+    /**
+     * @param key a key
+     * @return an estimate of the number of times key was added, never less
+     *         than the true number
+     */
+    int estimate(long key) {
+        int estimate = Integer.MAX_VALUE;
+        for (int r = 0; r < depth; r++) {
+            estimate = Math.min(estimate, counters[r * width + column(r, key)]);
+        }
+        return estimate;
+    }
+    
+    /**
+     * @return the size of the counter table in bytes
+     */
+    long footprint() {
+        return 4L * counters.length;
+    }
+    
+    @Override
+    public String toString() {
+        return "CountMinSketch(" + width + " x " + depth + ")";
+    }
+}
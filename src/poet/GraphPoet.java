@@ -5,8 +5,18 @@ package poet;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 
+import graph.ConcreteEdgesGraph;
+import graph.ConcreteVerticesGraph;
 import graph.Graph;
+import graph.SymbolTable;
+import graph.VersionedGraph;
 
 /**
  * A graph-based poetry generator.
@@ -52,14 +62,30 @@ import graph.Graph;
  */
 public class GraphPoet {
     
-    private final Graph<String> graph = Graph.empty();
+    private final Graph<String> graph;
+    private final BridgeIndex index;
+    private final TrigramTable trigrams;
     
     // Abstraction function:
-    //   TODO
+    //   Represents a poet whose word affinity graph is `graph`: its vertices are
+    //   the lower-case words of the corpus, and the weight of the edge w1 -> w2
+    //   is the number of times w1 is followed by w2 in the corpus. index, when
+    //   present, is graph itself, held in the form that finds bridges fastest.
+    //   trigrams, when present, counts the corpus's trigrams, and bridges are
+    //   chosen from it first.
     // Representation invariant:
-    //   TODO
+    //   - Every vertex of graph is a non-empty lower-case word containing no
+    //     whitespace.
+    //   - index is null or index == graph.
+    //   - trigrams is null or compacted.
     // Safety from rep exposure:
-    //   TODO
+    //   - graph and index are private and final and never returned.
+    //   - A graph handed to a corpus constructor belongs to the poet from then
+    //     on; callers must not keep mutating it, except through a
+    //     VersionedGraph, whose versions poem() reads one at a time.
+    //   - A graph handed to GraphPoet(Graph) stays the caller's, who may keep
+    //     changing it (for example re-weighting an OverlayGraph); poem() reads
+    //     it directly, so it must be safe to read while that happens.
     
     /**
      * Create a new poet with the graph from corpus (as described above).
@@ -68,10 +94,209 @@ public class GraphPoet {
      * @throws IOException if the corpus file cannot be found or read
      */
     public GraphPoet(File corpus) throws IOException {
-        throw new RuntimeException("not implemented");
+        this(corpus, new ConcreteVerticesGraph());
     }
     
-    // TODO checkRep
+    /**
+     * Create a new poet over an existing affinity graph, such as an
+     * {@link graph.OverlayGraph} blending several corpora. Nothing is copied
+     * or indexed: every poem reads the graph as it is at the time, so later
+     * changes to it, including re-weighting an overlay, take effect at once.
+     * 
+     * @param graph affinity graph whose vertices are non-empty lower-case
+     *        words containing no whitespace
+     */
+    public GraphPoet(Graph<String> graph) {
+        this.graph = graph;
+        this.index = null;
+        this.trigrams = null;
+        checkRep();
+    }
+    
+    /**
+     * Create a new poet with the graph from corpus (as described above),
+     * stored in a graph of the caller's choosing.
+     * 
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @param graph empty graph that will hold the affinity graph; the poet
+     *        takes ownership of it
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public GraphPoet(File corpus, Graph<String> graph) throws IOException {
+        this(corpus, graph, 2);
+    }
+    
+    /**
+     * Create a new poet with the graph from corpus (as described above) and,
+     * optionally, a trigram model of the corpus.
+     * 
+     * <p>With order 3, a bridge between w1 and w2 is chosen among the words b
+     * such that "w1 b w2" occurs in the corpus, maximizing the number of times
+     * it occurs plus the number of times "p w1 b" occurs, where p is the word
+     * before w1 in the poem (an input word or the bridge inserted before w1).
+     * Ties go to the smallest such b. Only if "w1 b w2" never occurs for any b
+     * is the bridge chosen from the affinity graph, as described above.
+     * Build time and memory grow linearly with the corpus.
+     * 
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @param graph empty graph that will hold the affinity graph; the poet
+     *        takes ownership of it
+     * @param order 2 to choose bridges from the affinity graph alone (as the
+     *        other constructors), or 3 to prefer trigram evidence
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public GraphPoet(File corpus, Graph<String> graph, int order) throws IOException {
+        this(corpus, graph, new Vocabulary(), order);
+    }
+    
+    // Counts pairs and trigrams with one shared vocabulary.
+    private GraphPoet(File corpus, Graph<String> graph, Vocabulary vocabulary, int order) throws IOException {
+        // roughly one new pair (and trigram) per 8 bytes of text, capped so a
+        // huge corpus grows the tables instead of reserving them up front
+        this(corpus, graph, new BigramTable(expectedPairs(corpus), vocabulary),
+                orderTable(order, corpus, vocabulary));
+    }
+    
+    private static int expectedPairs(File corpus) {
+        return (int) Math.min(corpus.length() / 8, 1 << 20);
+    }
+    
+    private static TrigramTable orderTable(int order, File corpus, Vocabulary vocabulary) {
+        if (order == 2) return null;
+        if (order == 3) return new TrigramTable(expectedPairs(corpus), vocabulary);
+        throw new IllegalArgumentException("Order must be 2 or 3, was " + order + ".");
+    }
+    
+    /**
+     * Create a new poet whose affinity graph is estimated rather than counted
+     * exactly, in memory fixed by the counter however large the corpus is.
+     * Edge weights are the counter's estimates, and only the heaviest edges
+     * the counter keeps are in the graph.
+     * 
+     * <p>The corpus may be a stream such as a named pipe, but it is read to
+     * its end before the poet exists: a stream that never ends never yields
+     * a poet. To write poems while text keeps arriving, split the stream
+     * into finite pieces and build a poet from each.
+     * 
+     * @param corpus text file, or a readable stream that ends, from which to
+     *        derive the poet's affinity graph
+     * @param graph empty graph that will hold the affinity graph; the poet
+     *        takes ownership of it
+     * @param counter fresh counter to estimate pair counts with
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public GraphPoet(File corpus, Graph<String> graph, ApproximateBigramCounter counter) throws IOException {
+        this(corpus, graph, (BigramCounter) counter, null);
+    }
+    
+    private GraphPoet(File corpus, Graph<String> graph, BigramCounter counter, TrigramTable trigrams)
+            throws IOException {
+        this.graph = graph;
+        this.trigrams = trigrams;
+        try (Reader reader = Files.newBufferedReader(corpus.toPath())) {
+            forEachWord(reader, trigrams == null
+                    ? word -> counter.add(SymbolTable.fold(word))
+                    : word -> {
+                        String folded = SymbolTable.fold(word);
+                        counter.add(folded);
+                        trigrams.add(folded);
+                    });
+        }
+        counter.flushTo(graph);
+        if (trigrams != null) trigrams.compact();
+        this.index = null;
+        checkRep();
+    }
+    
+    /**
+     * Create a new poet with the graph from corpus (as described above), held
+     * only as a read-only index that finds bridges faster than searching a
+     * graph. The graph the corpus is counted into is discarded once indexed,
+     * so the poet holds one copy of it, not two.
+     * 
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @return a new poet whose poems are as the other constructors' would be
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public static GraphPoet indexed(File corpus) throws IOException {
+        return new GraphPoet(new BridgeIndex(new GraphPoet(corpus, new ConcreteEdgesGraph()).graph));
+    }
+    
+    private GraphPoet(BridgeIndex index) {
+        this.graph = index;
+        this.index = index;
+        this.trigrams = null;
+        checkRep();
+    }
+    
+    // Streams the words of a text without holding more than one word of it.
+    private static void forEachWord(Reader reader, Consumer<String> action) throws IOException {
+        StringBuilder word = new StringBuilder();
+        char[] buffer = new char[8192];
+        int n;
+        while ((n = reader.read(buffer)) != -1) {
+            for (int i = 0; i < n; i++) {
+                if (Character.isWhitespace(buffer[i])) {
+                    if (word.length() > 0) {
+                        action.accept(word.toString());
+                        word.setLength(0);
+                    }
+                } else {
+                    word.append(buffer[i]);
+                }
+            }
+        }
+        if (word.length() > 0) {
+            action.accept(word.toString());
+        }
+    }
+    
+    private void checkRep() {
+        assert index == null || index == graph;
+        for (String vertex : graph.vertices()) {
+            assert !vertex.isEmpty();
+            assert vertex.equals(vertex.toLowerCase(Locale.ROOT));
+            assert words(vertex).length == 1;
+        }
+    }
+    
+    // Splits text into its words; leading and trailing whitespace is ignored.
+    private static String[] words(String text) {
+        String trimmed = text.strip();
+        if (trimmed.isEmpty()) return new String[0];
+        return trimmed.split("\\s+");
+    }
+    
+    /**
+     * Find the bridge word between two input words.
+     * 
+     * @param graph affinity graph to search
+     * @param w1 lower-case word
+     * @param w2 lower-case word
+     * @return the word b maximizing the weight of w1 -> b -> w2 (the smallest
+     *         such word if several tie), or null if there is no such path
+     */
+    private static String bridge(Graph<String> graph, String w1, String w2) {
+        Map<String, Integer> out = graph.targets(w1);
+        if (out.isEmpty()) return null;
+        Map<String, Integer> in = graph.sources(w2);
+        
+        // probe the larger side with the keys of the smaller one
+        Map<String, Integer> small = out.size() <= in.size() ? out : in;
+        Map<String, Integer> large = small == out ? in : out;
+        String best = null;
+        long bestWeight = 0;
+        for (Map.Entry<String, Integer> entry : small.entrySet()) {
+            Integer other = large.get(entry.getKey());
+            if (other == null) continue;
+            long weight = (long) entry.getValue() + other;
+            if (weight > bestWeight || (weight == bestWeight && entry.getKey().compareTo(best) < 0)) {
+                best = entry.getKey();
+                bestWeight = weight;
+            }
+        }
+        return best;
+    }
     
     /**
      * Generate a poem.
@@ -80,9 +305,65 @@ public class GraphPoet {
      * @return poem (as described above)
      */
     public String poem(String input) {
-        throw new RuntimeException("not implemented");
+        return poem(input, bridges());
+    }
+    
+    /**
+     * @return a function from two lower-case words to their bridge word (or
+     *         null), reading one version of the affinity graph throughout
+     */
+    BinaryOperator<String> bridges() {
+        if (index != null) return index::bridge;
+        // a versioned graph may change while we read it; read one version throughout
+        Graph<String> view = graph instanceof VersionedGraph
+                ? ((VersionedGraph<String>) graph).snapshot()
+                : graph;
+        return (w1, w2) -> bridge(view, w1, w2);
+    }
+    
+    /**
+     * Generate a poem using the given bridge words.
+     * 
+     * @param input string from which to create the poem
+     * @param bridges function from two lower-case words to their bridge word,
+     *        or null if they have none
+     * @return poem (as described above), with bridges chosen by bridges
+     */
+    String poem(String input, BinaryOperator<String> bridges) {
+        String[] words = words(input);
+        StringBuilder poem = new StringBuilder();
+        String before = null; // the poem word before w1, lower case
+        String w1 = null;
+        for (int i = 0; i < words.length; i++) {
+            String w2 = lowerCase(words[i]);
+            if (i > 0) {
+                String bridge = trigrams != null ? trigrams.bridge(before, w1, w2) : null;
+                if (bridge == null) {
+                    bridge = bridges.apply(w1, w2);
+                }
+                if (bridge != null) {
+                    poem.append(' ').append(bridge);
+                }
+                poem.append(' ');
+                before = bridge != null ? bridge : w1;
+            }
+            poem.append(words[i]);
+            w1 = w2;
+        }
+        return poem.toString();
+    }
+    
+    // Folds an input word to lower case, as the canonical corpus word if there
+    // is one; input words are never interned, so queries don't grow the table.
+    private static String lowerCase(String word) {
+        String lower = word.toLowerCase(Locale.ROOT);
+        String known = SymbolTable.lookup(lower);
+        return known != null ? known : lower;
     }
     
-    // TODO toString()
+    @Override
+    public String toString() {
+        return graph.toString();
+    }
     
 }
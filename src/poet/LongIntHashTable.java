@@ -0,0 +1,176 @@
+package poet;
+
+import java.util.Arrays;
+
+/**
+ * A mutable map from nonnegative long keys to int values, stored in two
+ * primitive arrays with open addressing and linear probing, so that lookups
+ * and updates neither box nor allocate.
+ * Absent keys read as 0.
+ */
+class LongIntHashTable {
+    
+    private static final long EMPTY = -1L;
+    private static final int MIN_CAPACITY = 16;
+    
+    private long[] keys;
+    private int[] values;
+    private int size = 0;
+    
+    // Abstraction function:
+    //   Represents the map { keys[i] -> values[i] | keys[i] != EMPTY }.
+    // Representation invariant:
+    //   - keys.length == values.length, a power of two, at least MIN_CAPACITY.
+    //   - size is the number of slots with keys[i] != EMPTY, and
+    //     size <= keys.length / 2, so every probe sequence ends at an EMPTY slot.
+    //   - Every key is >= 0, appears at most once, and sits in the probe
+    //     sequence starting at slot(key) with no EMPTY slot before it.
+    // Safety from rep exposure:
+    //   - The arrays are private and never returned; keys() returns a copy,
+    //     and forEach() passes only primitives.
+    
+    /**
+     * An action on one entry of a table.
+     */
+    interface EntryAction {
+        /**
+         * @param key a key of the table
+         * @param value its value
+         */
+        void accept(long key, int value);
+    }
+    
+    /**
+     * Create an empty table.
+     * 
+     * @param expectedSize number of keys the table should hold without resizing
+     */
+    LongIntHashTable(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2L && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        checkRep();
+    }
+    
+    // Checks the array shapes; key placement is maintained by find().
+    private void checkRep() {
+        assert keys.length == values.length;
+        assert Integer.bitCount(keys.length) == 1 && keys.length >= MIN_CAPACITY;
+        assert 0 <= size && size <= keys.length / 2;
+    }
+    
+    // Spreads all 64 key bits over the low bits used to pick a slot.
+    private static int slot(long key, int mask) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+    
+    // Returns the slot holding key, or the EMPTY slot where it would go.
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+    
+    /**
+     * @param key a nonnegative key
+     * @return the value of key, or 0 if key is absent
+     */
+    int get(long key) {
+        int i = find(key);
+        return keys[i] == EMPTY ? 0 : values[i];
+    }
+    
+    /**
+     * Add to the value of a key, inserting it with value delta if absent.
+     * 
+     * @param key a nonnegative key
+     * @param delta amount to add
+     * @return the new value of key
+     */
+    int increment(long key, int delta) {
+        if (key < 0) throw new IllegalArgumentException("Key must be non-negative.");
+        int i = find(key);
+        if (keys[i] == EMPTY) {
+            if (size + 1 > keys.length / 2) {
+                resize();
+                i = find(key);
+            }
+            keys[i] = key;
+            size++;
+        }
+        values[i] += delta;
+        return values[i];
+    }
+    
+    /**
+     * @return the number of keys in the table
+     */
+    int size() {
+        return size;
+    }
+    
+    /**
+     * @return the keys of the table in ascending order
+     */
+    long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[n++] = key;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+    
+    /**
+     * Apply an action to every entry, in no particular order, without copying
+     * the keys. The action must not modify the table.
+     * 
+     * @param action action to apply to each key and its value
+     */
+    void forEach(EntryAction action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+    
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != EMPTY) {
+                int i = find(oldKeys[j]);
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+        checkRep();
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (long key : keys()) {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(key).append('=').append(get(key));
+        }
+        return sb.append('}').toString();
+    }
+}
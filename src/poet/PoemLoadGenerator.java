@@ -0,0 +1,148 @@
+package poet;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A load generator for trying a PoemService locally: it fires bursts of
+ * requests at the service and reports how many were written, shed, or
+ * timed out, and the latency of those written.
+ */
+public class PoemLoadGenerator {
+    
+    /**
+     * The outcome of one load run.
+     */
+    public static final class Report {
+        private final int completed;
+        private final int shed;
+        private final int timedOut;
+        private final long[] latencies;
+        
+        private Report(int completed, int shed, int timedOut, long[] latencies) {
+            this.completed = completed;
+            this.shed = shed;
+            this.timedOut = timedOut;
+            this.latencies = latencies;
+        }
+        
+        /** @return the number of requests whose poems were written */
+        public int completed() {
+            return completed;
+        }
+        
+        /** @return the number of requests shed by the service */
+        public int shed() {
+            return shed;
+        }
+        
+        /** @return the number of requests whose deadlines passed */
+        public int timedOut() {
+            return timedOut;
+        }
+        
+        /**
+         * @param percentile between 0 and 100
+         * @return latency of written poems at that percentile, or
+         *         Duration.ZERO if none were written
+         */
+        public Duration latency(double percentile) {
+            if (latencies.length == 0) return Duration.ZERO;
+            int rank = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return Duration.ofNanos(latencies[Math.max(0, Math.min(rank, latencies.length - 1))]);
+        }
+        
+        @Override
+        public String toString() {
+            return "completed=" + completed + " shed=" + shed + " timedOut=" + timedOut
+                    + " p50=" + latency(50).toMillis() + "ms"
+                    + " p99=" + latency(99).toMillis() + "ms";
+        }
+    }
+    
+    private PoemLoadGenerator() {
+        throw new AssertionError("not instantiable");
+    }
+    
+    /**
+     * Send requests to a service in bursts and wait for them all to end.
+     * 
+     * @param service service to load
+     * @param inputs inputs to choose request inputs from at random, non-empty
+     * @param requests total number of requests to send
+     * @param burst number of requests sent back to back before pausing, at least 1
+     * @param pause pause between bursts
+     * @param deadline deadline of every request
+     * @param seed seed of the random choice of inputs
+     * @return what became of the requests
+     * @throws InterruptedException if interrupted while pausing
+     */
+    public static Report run(PoemService service, List<String> inputs, int requests, int burst,
+            Duration pause, Duration deadline, long seed) throws InterruptedException {
+        Random random = new Random(seed);
+        List<CompletableFuture<Long>> sent = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            if (i > 0 && i % burst == 0 && !pause.isZero()) {
+                Thread.sleep(pause.toMillis(), pause.toNanosPart() % 1_000_000);
+            }
+            long start = System.nanoTime();
+            String input = inputs.get(random.nextInt(inputs.size()));
+            sent.add(service.submit(input, deadline).thenApply(poem -> System.nanoTime() - start));
+        }
+        
+        int shed = 0;
+        int timedOut = 0;
+        long[] latencies = new long[requests];
+        int completed = 0;
+        for (CompletableFuture<Long> future : sent) {
+            try {
+                latencies[completed] = future.join();
+                completed++;
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RejectedExecutionException) {
+                    shed++;
+                } else if (e.getCause() instanceof TimeoutException) {
+                    timedOut++;
+                } else {
+                    throw e;
+                }
+            }
+        }
+        long[] written = Arrays.copyOf(latencies, completed);
+        Arrays.sort(written);
+        return new Report(completed, shed, timedOut, written);
+    }
+    
+    /**
+     * Load a poem service built on the example corpus and print a report.
+     * 
+     * @param args optional: number of requests, burst size, queue capacity,
+     *        deadline in milliseconds (defaults 100000, 1000, 4096, 200)
+     * @throws IOException if the corpus file cannot be found or read
+     * @throws InterruptedException if interrupted while running
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int burst = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 4_096;
+        Duration deadline = Duration.ofMillis(args.length > 3 ? Long.parseLong(args[3]) : 200);
+        
+        GraphPoet poet = GraphPoet.indexed(new File("src/poet/mugar-omni-theater.txt"));
+        List<String> inputs = List.of("Test the system.", "This is a test.", "Test of the Mugar theater.",
+                "The sound system is a test of the system.");
+        try (PoemService service = new PoemService(poet, capacity)) {
+            Report report = run(service, inputs, requests, burst, Duration.ofMillis(1), deadline, 0);
+            System.out.println(report);
+        }
+    }
+
+}
@@ -0,0 +1,466 @@
+package poet;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BinaryOperator;
+
+/**
+ * An in-process, asynchronous service that writes poems with a GraphPoet.
+ * 
+ * <p>Requests wait in a bounded queue. When the queue is full a new request is
+ * shed: its future fails at once with RejectedExecutionException rather than
+ * queueing without limit. Every request has a deadline; if it passes before
+ * the poem is written, the future fails with TimeoutException and the request
+ * is dropped without being worked on. The request is counted in
+ * {@link #expired()} before its future fails.
+ * 
+ * <p>A dispatcher takes queued requests in micro-batches of up to
+ * {@code maxBatch}, and each batch looks up the bridge word of each distinct
+ * word pair once, however many of its requests share the pair. Batches run on
+ * virtual threads where the JVM has them (Java 21 and later) and on a
+ * fixed pool of platform threads otherwise, with at most {@code parallelism}
+ * batches running at a time.
+ * 
+ * <p>All methods are thread-safe.
+ */
+public class PoemService implements AutoCloseable {
+    
+    private final GraphPoet poet;
+    private final BlockingQueue<Request> queue;
+    private final int maxBatch;
+    private final int window;
+    private final Semaphore running;
+    private final ExecutorService executor;
+    private final ScheduledThreadPoolExecutor timer;
+    private final Thread dispatcher;
+    private volatile boolean closed = false;
+    
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    
+    // Abstraction function:
+    //   Represents a service writing poems with poet, whose pending requests
+    //   are those in queue, followed by those in batches that are running.
+    //   completed, shed and expired count requests that ended each way, and
+    //   window is the most requests one stream of poems keeps in flight.
+    // Representation invariant:
+    //   - maxBatch >= 1, window >= 1, and running never has more permits
+    //     than parallelism.
+    //   - Every request in queue has a future that is not yet complete, or
+    //     that completed by timing out or being cancelled.
+    // Safety from rep exposure:
+    //   - All fields are private; callers only get futures and publishers,
+    //     which they are meant to own.
+    // Thread safety argument:
+    //   - queue is a BlockingQueue and the counters are atomic.
+    //   - Each request is taken from queue by the one dispatcher thread, then
+    //     completed by the one batch it went into (or by its timeout task on
+    //     timer); CompletableFuture makes completing it more than once
+    //     harmless, and whichever completion wins adjusts the counters.
+    //   - poet is only read, through GraphPoet.bridges() and poem(), which
+    //     read an immutable index or one version of the graph.
+    
+    /**
+     * A queued request for one poem.
+     */
+    private static final class Request {
+        final String input;
+        final long deadline;
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        
+        Request(String input, long deadline) {
+            this.input = input;
+            this.deadline = deadline;
+        }
+    }
+    
+    /**
+     * Create a service with one batch per available processor.
+     * 
+     * @param poet the poet to write poems with; it must not change while the
+     *        service runs, except through a VersionedGraph or a live view
+     * @param capacity maximum number of queued requests, at least 1
+     */
+    public PoemService(GraphPoet poet, int capacity) {
+        this(poet, capacity, 64, Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Create a service.
+     * 
+     * @param poet the poet to write poems with; it must not change while the
+     *        service runs, except through a VersionedGraph or a live view
+     * @param capacity maximum number of queued requests, at least 1
+     * @param maxBatch maximum number of requests written together, at least 1
+     * @param parallelism maximum number of batches written at once, at least 1
+     */
+    public PoemService(GraphPoet poet, int capacity, int maxBatch, int parallelism) {
+        if (capacity < 1 || maxBatch < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Capacity, batch size and parallelism must be positive.");
+        }
+        this.poet = Objects.requireNonNull(poet);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.window = Math.max(1, capacity / 2);
+        this.running = new Semaphore(parallelism);
+        this.executor = batchExecutor(parallelism);
+        this.timer = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "poem-service-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+        this.dispatcher = new Thread(this::dispatch, "poem-service-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+        checkRep();
+    }
+    
+    private void checkRep() {
+        assert maxBatch >= 1 && window >= 1;
+    }
+    
+    // Uses a virtual thread per batch if this JVM has virtual threads (found
+    // reflectively, so the service still compiles and runs on Java 17).
+    private static ExecutorService batchExecutor(int parallelism) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(parallelism, task -> {
+                Thread thread = new Thread(task, "poem-service-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+    
+    /**
+     * Ask for a poem.
+     * 
+     * @param input string from which to create the poem
+     * @param deadline how long the caller will wait for the poem, positive
+     * @return a future that completes with poet's poem for input; or fails
+     *         with RejectedExecutionException if the queue is full or the
+     *         service is closed, with TimeoutException if the deadline passes
+     *         first, or with CancellationException if the service is closed
+     *         before the request is worked on
+     */
+    public CompletableFuture<String> submit(String input, Duration deadline) {
+        if (deadline.isNegative() || deadline.isZero()) {
+            throw new IllegalArgumentException("Deadline must be positive.");
+        }
+        long nanos = deadline.toNanos();
+        Request request = new Request(Objects.requireNonNull(input), System.nanoTime() + nanos);
+        if (closed || !queue.offer(request)) {
+            shed.incrementAndGet();
+            request.future.completeExceptionally(new RejectedExecutionException(
+                    closed ? "Poem service is closed." : "Poem service queue is full."));
+            return request.future;
+        }
+        try {
+            ScheduledFuture<?> timeout = timer.schedule(() -> expire(request), nanos, TimeUnit.NANOSECONDS);
+            request.future.whenComplete((poem, e) -> timeout.cancel(false));
+        } catch (RejectedExecutionException e) {
+            // the timer is shut down, so the service has closed; handled below
+        }
+        if (closed && queue.remove(request)) {
+            request.future.completeExceptionally(new CancellationException("Poem service is closed."));
+        }
+        return request.future;
+    }
+    
+    /**
+     * Ask for a stream of poems, in input order. Inputs are only submitted as
+     * the subscriber requests poems, and at most half the queue capacity at a
+     * time, so a slow subscriber holds back the inputs rather than letting
+     * poems pile up, and one stream cannot fill the queue by itself. The
+     * stream fails with the first request that fails.
+     * 
+     * @param inputs strings from which to create the poems; the service reads
+     *        this list as the subscriber requests poems
+     * @param deadline deadline of each poem, from when its input is submitted
+     * @return a publisher of the poems, which accepts one subscriber
+     */
+    public Flow.Publisher<String> poems(List<String> inputs, Duration deadline) {
+        if (deadline.isNegative() || deadline.isZero()) {
+            throw new IllegalArgumentException("Deadline must be positive.");
+        }
+        return new PoemPublisher(inputs, deadline);
+    }
+    
+    /**
+     * @return the number of requests whose poems have been written
+     */
+    public long completed() {
+        return completed.get();
+    }
+    
+    /**
+     * @return the number of requests rejected because the queue was full or
+     *         the service was closed
+     */
+    public long shed() {
+        return shed.get();
+    }
+    
+    /**
+     * @return the number of requests dropped because their deadlines passed,
+     *         or their callers cancelled them, before they were worked on
+     */
+    public long expired() {
+        return expired.get();
+    }
+    
+    /**
+     * @return the number of requests waiting in the queue
+     */
+    public int queued() {
+        return queue.size();
+    }
+    
+    /**
+     * Stop the service. Requests still queued fail with CancellationException;
+     * batches already running finish.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+        List<Request> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        for (Request request : pending) {
+            request.future.completeExceptionally(new CancellationException("Poem service is closed."));
+        }
+        executor.shutdown();
+        timer.shutdown(); // timeouts of running batches still fire
+    }
+    
+    // Fails a request whose deadline has passed, counting it first so that a
+    // caller who sees the failure also sees the count.
+    private void expire(Request request) {
+        if (request.future.isDone()) return;
+        expired.incrementAndGet();
+        if (!request.future.completeExceptionally(new TimeoutException("Poem deadline passed."))) {
+            expired.decrementAndGet(); // finished meanwhile
+        }
+    }
+    
+    // Takes batches off the queue and hands each to the executor.
+    private void dispatch() {
+        while (!closed) {
+            List<Request> batch = new ArrayList<>(maxBatch);
+            try {
+                running.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                running.release();
+                return;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+            try {
+                executor.execute(() -> {
+                    try {
+                        write(batch);
+                    } finally {
+                        running.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                running.release();
+                for (Request request : batch) {
+                    request.future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+    
+    // Writes the poems of a batch, finding each distinct bridge once.
+    private void write(List<Request> batch) {
+        BinaryOperator<String> bridges = poet.bridges();
+        Map<String, Map<String, String>> found = new HashMap<>();
+        BinaryOperator<String> shared = (w1, w2) -> {
+            Map<String, String> row = found.computeIfAbsent(w1, w -> new HashMap<>());
+            if (!row.containsKey(w2)) row.put(w2, bridges.apply(w1, w2));
+            return row.get(w2);
+        };
+        for (Request request : batch) {
+            if (request.future.isDone()) {
+                // timed out while queued, and counted then; or cancelled
+                if (request.future.isCancelled()) expired.incrementAndGet();
+                continue;
+            }
+            if (System.nanoTime() - request.deadline >= 0) {
+                expire(request);
+                continue;
+            }
+            try {
+                String poem = poet.poem(request.input, shared);
+                // count before completing, so a caller that sees the poem sees the count
+                completed.incrementAndGet();
+                if (!request.future.complete(poem)) {
+                    completed.decrementAndGet(); // timed out or cancelled meanwhile
+                    if (request.future.isCancelled()) expired.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+    
+    /**
+     * A publisher of the poems for a list of inputs, submitting each input
+     * only once its poem has been requested.
+     */
+    private final class PoemPublisher implements Flow.Publisher<String> {
+        private final List<String> inputs;
+        private final Duration deadline;
+        private boolean subscribed = false;
+        
+        PoemPublisher(List<String> inputs, Duration deadline) {
+            this.inputs = inputs;
+            this.deadline = deadline;
+        }
+        
+        @Override
+        public void subscribe(Flow.Subscriber<? super String> subscriber) {
+            Objects.requireNonNull(subscriber);
+            synchronized (this) {
+                if (subscribed) {
+                    subscriber.onSubscribe(new Flow.Subscription() {
+                        @Override public void request(long n) { }
+                        @Override public void cancel() { }
+                    });
+                    subscriber.onError(new IllegalStateException("This publisher accepts one subscriber."));
+                    return;
+                }
+                subscribed = true;
+            }
+            PoemSubscription subscription = new PoemSubscription(subscriber, inputs.iterator(), deadline);
+            subscriber.onSubscribe(subscription);
+        }
+    }
+    
+    /**
+     * The subscription of one subscriber to a PoemPublisher. Signals to the
+     * subscriber are serialized by the drain loop: only the thread that moved
+     * pending from 0 emits, and it loops until no more work was signalled.
+     */
+    private final class PoemSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super String> subscriber;
+        private final Iterator<String> inputs;
+        private final Duration deadline;
+        private final Queue<CompletableFuture<String>> inFlight = new ArrayDeque<>();
+        private long demand = 0;
+        private int pending = 0;
+        private boolean done = false;
+        
+        PoemSubscription(Flow.Subscriber<? super String> subscriber, Iterator<String> inputs, Duration deadline) {
+            this.subscriber = subscriber;
+            this.inputs = inputs;
+            this.deadline = deadline;
+        }
+        
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (done) return;
+                if (n <= 0) {
+                    done = true;
+                    inFlight.forEach(future -> future.cancel(false));
+                    inFlight.clear();
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n; // saturate at "unbounded"
+                }
+            }
+            if (n <= 0) {
+                subscriber.onError(new IllegalArgumentException("Request count must be positive."));
+                return;
+            }
+            drain();
+        }
+        
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                done = true;
+                inFlight.forEach(future -> future.cancel(false));
+                inFlight.clear();
+            }
+        }
+        
+        // Submits inputs up to demand and emits finished poems in order.
+        private void drain() {
+            synchronized (this) {
+                if (pending++ > 0) return;
+            }
+            while (true) {
+                String poem = null;
+                Throwable error = null;
+                boolean complete = false;
+                synchronized (this) {
+                    if (done) return;
+                    while (inFlight.size() < Math.min(demand, window) && inputs.hasNext()) {
+                        CompletableFuture<String> future = submit(inputs.next(), deadline);
+                        inFlight.add(future);
+                        future.whenComplete((result, failure) -> drain());
+                    }
+                    CompletableFuture<String> head = inFlight.peek();
+                    if (head != null && head.isDone()) {
+                        inFlight.remove();
+                        try {
+                            poem = head.join();
+                            demand--;
+                        } catch (CompletionException | CancellationException e) {
+                            error = e instanceof CompletionException ? e.getCause() : e;
+                            done = true;
+                        }
+                    } else if (head == null && !inputs.hasNext()) {
+                        complete = true;
+                        done = true;
+                    } else if (--pending == 0) {
+                        return;
+                    } else {
+                        pending = 1;
+                        continue;
+                    }
+                }
+                if (error != null) {
+                    cancel();
+                    subscriber.onError(error);
+                    return;
+                } else if (complete) {
+                    subscriber.onComplete();
+                    return;
+                }
+                subscriber.onNext(poem);
+            }
+        }
+    }
+}
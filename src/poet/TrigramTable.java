@@ -0,0 +1,214 @@
+package poet;
+
+import java.util.Arrays;
+
+/**
+ * A trigram model of a corpus: counts how often each word b appears between
+ * two words a and c (as "a b c"), so bridge words can be chosen from the
+ * words actually seen in that gap, and conditioned on the word before.
+ * 
+ * <p>Words are numbered by a {@link Vocabulary}, normally the one the
+ * corpus's {@link BigramTable} uses. While the corpus is read, each distinct
+ * gap (a, _, c) gets a dense context ID from a primitive hash table keyed by
+ * the packed pair, and each trigram is counted under the packed key
+ * (context, b), so memory grows with the number of distinct trigrams, never
+ * with the square of the vocabulary.
+ * {@link #compact()} then lays the counts out as one sorted row of middle
+ * words per context and drops the trigram table.
+ */
+class TrigramTable {
+    
+    private final Vocabulary vocabulary;
+    private final LongIntHashTable contexts;
+    private LongIntHashTable counts;
+    private int beforeLast = -1;
+    private int last = -1;
+    
+    // after compact(): row i holds middles[offsets[i] .. offsets[i+1]), sorted
+    private int[] offsets;
+    private int[] middles;
+    private int[] weights;
+    
+    // Abstraction function:
+    //   Represents the counts of trigrams in the word sequence fed to add():
+    //   the trigram (vocabulary.word(a), vocabulary.word(b),
+    //   vocabulary.word(c)) was seen n
+    //   times, where ctx + 1 == contexts.get(pair(a, c)) and, before
+    //   compact(), n == counts.get(pair(ctx, b)); after it, n is the weight
+    //   of b in row ctx. beforeLast and last are the IDs of the last two words
+    //   fed, or -1.
+    // Representation invariant:
+    //   - The values of contexts are 1 .. contexts.size(), each once.
+    //   - Exactly one of counts and offsets is null. Once compacted,
+    //     offsets.length == contexts.size() + 1, offsets is nondecreasing
+    //     from 0 to middles.length == weights.length, each row is strictly
+    //     increasing, and every weight is positive.
+    // Safety from rep exposure:
+    //   - All fields are private; only Strings (immutable) leave the table.
+    //     vocabulary is shared with the caller by design, and only grows.
+    // Thread safety argument:
+    //   - Not thread-safe while counting. Once compacted the table is never
+    //     modified, so it may be read from any thread that saw it published
+    //     safely (e.g. through a final field).
+    
+    /**
+     * Create an empty table with its own vocabulary.
+     * 
+     * @param expectedTrigrams number of distinct trigrams expected
+     */
+    TrigramTable(int expectedTrigrams) {
+        this(expectedTrigrams, new Vocabulary());
+    }
+    
+    /**
+     * Create an empty table.
+     * 
+     * @param expectedTrigrams number of distinct trigrams expected
+     * @param vocabulary vocabulary to take word IDs from, which may be shared
+     */
+    TrigramTable(int expectedTrigrams, Vocabulary vocabulary) {
+        this.vocabulary = vocabulary;
+        contexts = new LongIntHashTable(expectedTrigrams);
+        counts = new LongIntHashTable(expectedTrigrams);
+        checkRep();
+    }
+    
+    // Checks the shapes; row contents are established by compact().
+    private void checkRep() {
+        assert (counts == null) != (offsets == null);
+        assert offsets == null || offsets.length == contexts.size() + 1;
+        assert offsets == null || middles.length == weights.length && offsets[offsets.length - 1] == middles.length;
+    }
+    
+    private static long pair(int first, int second) {
+        return (long) first << 32 | second;
+    }
+    
+    /**
+     * Feed the next word of the corpus.
+     * 
+     * @param word a lower-case word
+     * @throws IllegalStateException if the table has been compacted
+     */
+    void add(String word) {
+        if (counts == null) throw new IllegalStateException("Table is compacted.");
+        int id = vocabulary.id(word);
+        if (beforeLast >= 0) {
+            long gap = pair(beforeLast, id);
+            int context = contexts.get(gap) - 1;
+            if (context < 0) {
+                context = contexts.size();
+                contexts.increment(gap, context + 1);
+            }
+            counts.increment(pair(context, last), 1);
+        }
+        beforeLast = last;
+        last = id;
+    }
+    
+    /**
+     * Finish counting: lay the counts out in sorted rows and free the
+     * counting table. Further calls do nothing.
+     */
+    void compact() {
+        if (counts == null) return;
+        int rows = contexts.size();
+        int[] starts = new int[rows + 1];
+        int[] rowMiddles = new int[counts.size()];
+        int[] rowWeights = new int[counts.size()];
+        // count each row's length, then turn the counts into row ends
+        counts.forEach((key, weight) -> starts[(int) (key >>> 32)]++);
+        int longest = 0;
+        for (int i = 0; i < rows; i++) {
+            longest = Math.max(longest, starts[i]);
+            if (i > 0) starts[i] += starts[i - 1];
+        }
+        starts[rows] = rowMiddles.length;
+        // fill each row from its end, leaving starts[i] at the start of row i
+        counts.forEach((key, weight) -> {
+            int i = --starts[(int) (key >>> 32)];
+            rowMiddles[i] = (int) key;
+            rowWeights[i] = weight;
+        });
+        offsets = starts;
+        middles = rowMiddles;
+        weights = rowWeights;
+        long[] row = new long[longest];
+        for (int i = 0; i < rows; i++) {
+            sortRow(offsets[i], offsets[i + 1], row);
+        }
+        counts = null;
+        checkRep();
+    }
+    
+    // Sorts middles[from .. to) ascending, moving weights with them, using
+    // scratch (at least to - from long) to sort them as packed pairs.
+    private void sortRow(int from, int to, long[] scratch) {
+        int length = to - from;
+        if (length < 2) return;
+        for (int i = 0; i < length; i++) {
+            scratch[i] = pair(middles[from + i], weights[from + i]);
+        }
+        Arrays.sort(scratch, 0, length);
+        for (int i = 0; i < length; i++) {
+            middles[from + i] = (int) (scratch[i] >>> 32);
+            weights[from + i] = (int) scratch[i];
+        }
+    }
+    
+    // Returns how often a b c was seen, or 0.
+    private int count(int a, int b, int c) {
+        int context = contexts.get(pair(a, c)) - 1;
+        if (context < 0) return 0;
+        int to = offsets[context + 1];
+        int i = BridgeIndex.lowerBound(middles, offsets[context], to, b);
+        return i < to && middles[i] == b ? weights[i] : 0;
+    }
+    
+    /**
+     * Find the bridge word between two words from the trigrams seen between
+     * them, conditioned on the word before them.
+     * 
+     * @param before lower-case word preceding w1, or null if none
+     * @param w1 lower-case word
+     * @param w2 lower-case word
+     * @return the word b maximizing count(w1 b w2) + count(before w1 b) among
+     *         the b with count(w1 b w2) > 0 (the smallest such word if several
+     *         tie), or null if "w1 b w2" was never seen for any b
+     * @throws IllegalStateException if the table has not been compacted
+     */
+    String bridge(String before, String w1, String w2) {
+        if (offsets == null) throw new IllegalStateException("Table is not compacted.");
+        int a = vocabulary.find(w1);
+        int c = vocabulary.find(w2);
+        if (a < 0 || c < 0) return null;
+        int context = contexts.get(pair(a, c)) - 1;
+        if (context < 0) return null;
+        int p = before == null ? -1 : vocabulary.find(before);
+        
+        String best = null;
+        long bestScore = 0;
+        for (int i = offsets[context]; i < offsets[context + 1]; i++) {
+            int b = middles[i];
+            long score = (long) weights[i] + (p < 0 ? 0 : count(p, a, b));
+            String word = vocabulary.word(b);
+            if (score > bestScore || (score == bestScore && word.compareTo(best) < 0)) {
+                best = word;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * @return the number of distinct trigrams counted
+     */
+    int size() {
+        return counts != null ? counts.size() : middles.length;
+    }
+    
+    @Override
+    public String toString() {
+        return vocabulary.size() + " words, " + contexts.size() + " contexts, " + size() + " trigrams";
+    }
+}
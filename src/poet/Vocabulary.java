@@ -0,0 +1,71 @@
+package poet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A growing map between the distinct words of a corpus and dense int IDs,
+ * 0, 1, 2, ... in order of first appearance. The word-count tables of one
+ * corpus share one vocabulary, so each word is stored and mapped once
+ * however many tables count it.
+ */
+class Vocabulary {
+    
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> words = new ArrayList<>();
+    
+    // Abstraction function:
+    //   Represents the map from words.get(i) to i, for every i.
+    // Representation invariant:
+    //   - ids and words are inverse: ids.get(words.get(i)) == i.
+    // Safety from rep exposure:
+    //   - All fields are private; only Strings (immutable) and ints leave.
+    // Thread safety argument:
+    //   - Not thread-safe while words are added. Once nothing is added it may
+    //     be read from any thread that saw it published safely.
+    
+    private void checkRep() {
+        assert ids.size() == words.size();
+    }
+    
+    /**
+     * @param word a word
+     * @return the ID of word, giving it the next ID if it has none yet
+     */
+    int id(String word) {
+        Integer id = ids.get(word);
+        if (id == null) {
+            id = words.size();
+            ids.put(word, id);
+            words.add(word);
+            checkRep();
+        }
+        return id;
+    }
+    
+    /**
+     * @param word a word
+     * @return the ID of word, or -1 if it has none; the vocabulary is unchanged
+     */
+    int find(String word) {
+        Integer id = ids.get(word);
+        return id == null ? -1 : id;
+    }
+    
+    /**
+     * @param id an ID, 0 <= id < size()
+     * @return the word with that ID
+     */
+    String word(int id) {
+        return words.get(id);
+    }
+    
+    /**
+     * @return the number of distinct words
+     */
+    int size() {
+        return words.size();
+    }
+}
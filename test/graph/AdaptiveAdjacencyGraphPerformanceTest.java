@@ -0,0 +1,11 @@
+package graph;
+
+/**
+ * Runs the GraphPerformanceTest contracts against AdaptiveAdjacencyGraph.
+ */
+public class AdaptiveAdjacencyGraphPerformanceTest extends GraphPerformanceTest {
+    
+    @Override public Graph<String> emptyInstance() {
+        return new AdaptiveAdjacencyGraph<>();
+    }
+}
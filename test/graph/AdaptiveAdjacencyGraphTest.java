@@ -0,0 +1,108 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for AdaptiveAdjacencyGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against AdaptiveAdjacencyGraph,
+ * as well as tests for that particular implementation.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class AdaptiveAdjacencyGraphTest extends GraphInstanceTest {
+    
+    /*
+     * Provide an AdaptiveAdjacencyGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new AdaptiveAdjacencyGraph<>();
+    }
+    
+    /*
+     * Testing AdaptiveAdjacencyGraph...
+     */
+    
+    // Testing strategy for AdaptiveAdjacencyGraph
+    //   vertex degree: below, at, above the promotion threshold
+    //   remove: hub vertex, self-loop, vertex whose neighbors are hubs
+    
+    @Test
+    public void testHubVertex() {
+        Graph<Integer> graph = new AdaptiveAdjacencyGraph<>();
+        for (int i = 1; i <= 100; i++) {
+            graph.set(0, i, i);
+            graph.set(i, 0, i);
+        }
+        assertEquals(100, graph.targets(0).size());
+        assertEquals((Integer) 42, graph.targets(0).get(42));
+        assertEquals((Integer) 42, graph.sources(0).get(42));
+        for (int i = 1; i <= 95; i++) {
+            assertEquals(i, graph.set(0, i, 0));
+        }
+        assertEquals(Map.of(96, 96, 97, 97, 98, 98, 99, 99, 100, 100), graph.targets(0));
+    }
+    
+    @Test
+    public void testRemoveHubAndSelfLoop() {
+        Graph<String> graph = new AdaptiveAdjacencyGraph<>();
+        graph.set("hub", "hub", 3);
+        for (int i = 0; i < 40; i++) {
+            graph.set("hub", "w" + i, 1);
+            graph.set("w" + i, "hub", 2);
+        }
+        assertTrue(graph.remove("hub"));
+        assertEquals(40, graph.vertices().size());
+        for (int i = 0; i < 40; i++) {
+            assertTrue(graph.targets("w" + i).isEmpty());
+            assertTrue(graph.sources("w" + i).isEmpty());
+        }
+    }
+    
+    /*
+     * Testing Adjacency...
+     */
+    
+    // Testing strategy for Adjacency
+    //   size: 0, PROMOTE_ABOVE, PROMOTE_ABOVE + 1, back down to DEMOTE_AT
+    //   put: new key, existing key; remove: present, absent key
+    
+    @Test
+    public void testAdjacencyPromotesAndDemotes() {
+        Adjacency<Integer> adjacency = new Adjacency<>();
+        for (int i = 0; i < Adjacency.PROMOTE_ABOVE; i++) {
+            assertEquals(0, adjacency.put(i, i + 1));
+        }
+        assertFalse(adjacency.isHashed());
+        assertEquals(1, adjacency.put(0, 7));
+        assertFalse(adjacency.isHashed());
+        adjacency.put(Adjacency.PROMOTE_ABOVE, 1);
+        assertTrue(adjacency.isHashed());
+        
+        int key = 0;
+        while (adjacency.size() > Adjacency.DEMOTE_AT + 1) {
+            adjacency.remove(key++);
+        }
+        assertTrue("expected hysteresis before demotion", adjacency.isHashed());
+        adjacency.remove(key++);
+        assertFalse(adjacency.isHashed());
+        assertEquals(Adjacency.DEMOTE_AT, adjacency.size());
+        assertEquals(Adjacency.PROMOTE_ABOVE, adjacency.get(Adjacency.PROMOTE_ABOVE - 1));
+    }
+    
+    @Test
+    public void testAdjacencyRemove() {
+        Adjacency<String> adjacency = new Adjacency<>();
+        adjacency.put("a", 1);
+        adjacency.put("b", 2);
+        assertEquals(0, adjacency.remove("c"));
+        assertEquals(1, adjacency.remove("a"));
+        assertEquals(0, adjacency.get("a"));
+        assertEquals(Set.of("b"), adjacency.toMap().keySet());
+    }
+}
@@ -0,0 +1,14 @@
+package graph;
+
+/**
+ * Runs the GraphPerformanceTest contracts against CompressedGraph.
+ */
+public class CompressedGraphPerformanceTest extends GraphPerformanceTest {
+    
+    // Keeps every row of the allocation fixtures hot: each vertex has an out
+    // row and an in row, so the default 1024 would evict and re-encode a row
+    // on every set, and the contracts would measure eviction instead.
+    @Override public Graph<String> emptyInstance() {
+        return new CompressedGraph<>(4 * EDGES);
+    }
+}
@@ -0,0 +1,139 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for CompressedGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against CompressedGraph, as
+ * well as tests for that particular implementation.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class CompressedGraphTest extends GraphInstanceTest {
+    
+    /*
+     * Provide a CompressedGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new CompressedGraph<>();
+    }
+    
+    /*
+     * Testing CompressedGraph...
+     */
+    
+    // Testing strategy for CompressedGraph
+    //   hot rows: 1 (every other access compresses), more than the graph needs
+    //   operations: random mix of set and remove, compared with a plain map
+    //   vertex IDs: reused after remove
+    
+    @Test
+    public void testSingleHotRowMatchesReference() {
+        Random random = new Random(6005);
+        CompressedGraph<Integer> graph = new CompressedGraph<>(1);
+        Map<Integer, Map<Integer, Integer>> expected = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            int source = random.nextInt(50);
+            int target = random.nextInt(50);
+            if (random.nextInt(20) == 0) {
+                boolean present = expected.containsKey(source);
+                assertEquals(present, graph.remove(source));
+                expected.remove(source);
+                expected.values().forEach(targets -> targets.remove(source));
+            } else {
+                int weight = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(1_000_000);
+                Map<Integer, Integer> targets = expected.getOrDefault(source, new HashMap<>());
+                int previous = targets.getOrDefault(target, 0);
+                assertEquals(previous, graph.set(source, target, weight));
+                if (weight > 0) {
+                    expected.computeIfAbsent(source, s -> new HashMap<>()).put(target, weight);
+                    expected.computeIfAbsent(target, t -> new HashMap<>());
+                } else {
+                    targets.remove(target);
+                }
+            }
+            assertTrue(graph.hotRowCount() <= 1);
+        }
+        assertEquals(expected.keySet(), graph.vertices());
+        for (Integer vertex : expected.keySet()) {
+            assertEquals(expected.get(vertex), graph.targets(vertex));
+        }
+    }
+    
+    @Test
+    public void testRemovedIdIsReused() {
+        CompressedGraph<String> graph = new CompressedGraph<>(2);
+        graph.set("a", "b", 1);
+        graph.remove("a");
+        graph.set("c", "b", 2);
+        assertEquals(Map.of("c", 2), graph.sources("b"));
+        assertTrue(graph.targets("a").isEmpty());
+    }
+    
+    /*
+     * Testing Row...
+     */
+    
+    // Testing strategy for Row
+    //   encode/decode: empty row, small and large IDs and weights, row with
+    //                  an unsorted tail
+    //   put: IDs in decreasing and random order, in the sorted part and the
+    //        tail; overwrite; remove after puts
+    
+    @Test
+    public void testRowRoundTrip() {
+        CompressedGraph.Row row = new CompressedGraph.Row();
+        assertEquals(0, CompressedGraph.Row.decode(row.encode()).size);
+        int[] ids = {0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE};
+        for (int k = ids.length - 1; k >= 0; k--) {
+            row.put(ids[k], Integer.MAX_VALUE - k);
+        }
+        CompressedGraph.Row decoded = CompressedGraph.Row.decode(row.encode());
+        assertEquals(ids.length, decoded.size);
+        for (int k = 0; k < ids.length; k++) {
+            assertEquals(ids[k], decoded.ids[k]);
+            assertEquals(Integer.MAX_VALUE - k, decoded.weights[k]);
+        }
+        assertEquals(Integer.MAX_VALUE, decoded.remove(0));
+        assertEquals(0, decoded.remove(0));
+    }
+    
+    @Test
+    public void testRowRandomPutsMatchReference() {
+        Random random = new Random(6005);
+        CompressedGraph.Row row = new CompressedGraph.Row();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            int id = random.nextInt(2_000);
+            int weight = 1 + random.nextInt(9);
+            Integer previous = expected.put(id, weight);
+            assertEquals(previous == null ? 0 : previous, row.put(id, weight));
+            if (i % 997 == 0) {
+                CompressedGraph.Row decoded = CompressedGraph.Row.decode(row.encode());
+                assertEquals(expected.size(), decoded.size);
+                for (int k = 0; k < decoded.size; k++) {
+                    assertEquals(expected.get(decoded.ids[k]), (Integer) decoded.weights[k]);
+                    assertTrue(k == 0 || decoded.ids[k - 1] < decoded.ids[k]);
+                }
+            }
+        }
+        for (int id = 0; id < 2_000; id += 3) {
+            Integer previous = expected.remove(id);
+            assertEquals(previous == null ? 0 : previous, row.remove(id));
+            assertEquals(0, row.put(id + 2_000, 1));
+            expected.put(id + 2_000, 1);
+        }
+        Map<Integer, Integer> actual = new HashMap<>();
+        for (int k = 0; k < row.size; k++) {
+            actual.put(row.ids[k], row.weights[k]);
+        }
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,16 @@
+package graph;
+
+/**
+ * Runs the GraphPerformanceTest contracts against ConcreteEdgesGraph.
+ */
+public class ConcreteEdgesGraphPerformanceTest extends GraphPerformanceTest {
+    
+    @Override public Graph<String> emptyInstance() {
+        return new ConcreteEdgesGraph();
+    }
+    
+    // a changed edge is immutable, so it is created again at the end of the list
+    @Override protected long setAllocationBudget() {
+        return 768;
+    }
+}
@@ -0,0 +1,16 @@
+package graph;
+
+/**
+ * Runs the GraphPerformanceTest contracts against ConcreteVerticesGraph.
+ */
+public class ConcreteVerticesGraphPerformanceTest extends GraphPerformanceTest {
+    
+    @Override public Graph<String> emptyInstance() {
+        return new ConcreteVerticesGraph();
+    }
+    
+    // each vertex holds only its outgoing edges
+    @Override protected boolean indexesSources() {
+        return false;
+    }
+}
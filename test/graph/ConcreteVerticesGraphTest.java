@@ -70,6 +70,22 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
         assertEquals("(source -> other, 3)\n(source -> target, 1)\n(target -> source, 2)", graph.toString());
     }
 
+    // Testing strategy for ConcreteVerticesGraph.set()
+    //   - Negative weight: rejected, graph unchanged
+    
+    @Test
+    public void testSetNegativeWeightRejected() {
+        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        graph.set("source", "target", 1);
+        try {
+            graph.set("source", "other", -1);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals(Set.of("source", "target"), graph.vertices());
+            assertEquals(Map.of("target", 1), graph.targets("source"));
+        }
+    }
+
     /*
      * Testing Vertex...
      */
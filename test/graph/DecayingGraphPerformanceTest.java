@@ -0,0 +1,12 @@
+package graph;
+
+/**
+ * Runs the GraphPerformanceTest contracts against DecayingGraph, with a clock
+ * that never advances.
+ */
+public class DecayingGraphPerformanceTest extends GraphPerformanceTest {
+    
+    @Override public Graph<String> emptyInstance() {
+        return new DecayingGraph<>(10, () -> 0L);
+    }
+}
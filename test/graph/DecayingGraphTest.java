@@ -0,0 +1,149 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * Tests for DecayingGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against DecayingGraph, with a
+ * clock that never advances, as well as tests for that particular
+ * implementation.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class DecayingGraphTest extends GraphInstanceTest {
+    
+    /*
+     * Provide a DecayingGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new DecayingGraph<>(10, () -> 0L);
+    }
+    
+    /*
+     * Testing DecayingGraph...
+     */
+    
+    // Testing strategy for DecayingGraph
+    //   elapsed epochs: 0, one half-life, many half-lives
+    //   writes: set() after decay, SUM load reinforcing a decayed edge
+    //   sweep: nothing to sweep, edges decayed to zero; endpoints left with
+    //          no edges reclaimed, vertices that never had edges kept
+    //   sweep(maxVertices): pass finished in one call, pass spread over
+    //                       several calls, vertex removed mid-pass; invalid
+    //   halfLife: positive, infinite, invalid
+    
+    @Test
+    public void testWeightHalvesEachHalfLife() {
+        AtomicLong epoch = new AtomicLong();
+        DecayingGraph<String> graph = new DecayingGraph<>(2, epoch::get);
+        graph.set("a", "b", 40);
+        epoch.set(2);
+        assertEquals(Map.of("b", 20), graph.targets("a"));
+        epoch.set(4);
+        assertEquals(Map.of("a", 10), graph.sources("b"));
+        assertEquals(10, graph.set("a", "b", 7));
+        epoch.set(6);
+        assertEquals((Integer) 4, graph.targets("a").get("b"));
+    }
+    
+    @Test
+    public void testSumLoadReinforcesDecayedWeight() {
+        AtomicLong epoch = new AtomicLong();
+        DecayingGraph<String> graph = new DecayingGraph<>(1, epoch::get);
+        new GraphBuilder<String>(GraphBuilder.Duplicates.SUM).add("a", "b", 8).buildInto(graph);
+        epoch.set(1);
+        new GraphBuilder<String>(GraphBuilder.Duplicates.SUM).add("a", "b", 8).buildInto(graph);
+        assertEquals(Map.of("b", 12), graph.targets("a"));
+    }
+    
+    @Test
+    public void testSweepDropsFadedEdges() {
+        AtomicLong epoch = new AtomicLong();
+        DecayingGraph<String> graph = new DecayingGraph<>(1, epoch::get);
+        graph.set("a", "b", 1);
+        graph.set("a", "c", 1_000);
+        assertEquals(0, graph.sweep());
+        epoch.set(3);
+        assertEquals(Map.of("c", 125), graph.targets("a"));
+        assertTrue(graph.sources("b").isEmpty());
+        graph.sweeper().run();
+        assertEquals(Set.of("a", "c"), graph.vertices());
+        epoch.set(100);
+        assertEquals(1, graph.sweep());
+        assertEquals(Set.of(), graph.vertices());
+    }
+    
+    @Test
+    public void testSweepKeepsVerticesThatNeverHadEdges() {
+        AtomicLong epoch = new AtomicLong();
+        DecayingGraph<String> graph = new DecayingGraph<>(1, epoch::get);
+        graph.add("lone");
+        graph.set("a", "a", 1);
+        graph.set("b", "c", 1);
+        graph.set("c", "d", 1_000);
+        epoch.set(3);
+        assertEquals(2, graph.sweep());
+        assertEquals(Set.of("lone", "c", "d"), graph.vertices());
+    }
+    
+    @Test
+    public void testIncrementalSweepSpreadsPass() {
+        AtomicLong epoch = new AtomicLong();
+        DecayingGraph<String> graph = new DecayingGraph<>(1, epoch::get);
+        graph.set("a", "b", 1);
+        graph.set("c", "d", 1);
+        graph.set("e", "f", 1);
+        epoch.set(3);
+        int swept = 0;
+        for (int i = 0; i < 6; i++) {
+            swept += graph.sweep(1);
+            assertTrue(graph.vertices().size() >= 6 - 2 * swept);
+        }
+        assertEquals(3, swept);
+        assertEquals(Set.of(), graph.vertices());
+    }
+    
+    @Test
+    public void testIncrementalSweepSkipsRemovedVertices() {
+        AtomicLong epoch = new AtomicLong();
+        DecayingGraph<String> graph = new DecayingGraph<>(1, epoch::get);
+        graph.set("a", "b", 1);
+        graph.set("c", "d", 1);
+        epoch.set(3);
+        graph.sweep(1);
+        graph.remove("c");
+        graph.remove("d");
+        graph.sweeper(10).run();
+        assertEquals(Set.of(), graph.vertices());
+        graph.set("x", "y", 1);
+        epoch.set(6);
+        assertEquals(1, graph.sweep(10));
+        assertEquals(Set.of(), graph.vertices());
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testIncrementalSweepInvalidBatch() {
+        new DecayingGraph<String>(1, () -> 0L).sweep(0);
+    }
+    
+    @Test
+    public void testInfiniteHalfLifeNeverDecays() {
+        AtomicLong epoch = new AtomicLong();
+        DecayingGraph<String> graph = new DecayingGraph<>(Double.POSITIVE_INFINITY, epoch::get);
+        graph.set("a", "b", 3);
+        epoch.set(1_000_000);
+        assertEquals(Map.of("b", 3), graph.targets("a"));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidHalfLife() {
+        new DecayingGraph<String>(0, () -> 0L);
+    }
+}
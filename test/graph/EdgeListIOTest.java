@@ -0,0 +1,181 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+/**
+ * Tests for EdgeListIO.
+ */
+public class EdgeListIOTest {
+    
+    // Testing strategy
+    //   read: empty file, one line, many lines across many chunks, a line
+    //         longer than a chunk (first, or after buffers are reused), no
+    //         final newline, CRLF, blank lines,
+    //         non-ASCII labels, non-String labels
+    //   duplicates: SUM and OVERWRITE, within a chunk and across chunks,
+    //               onto existing edges
+    //   malformed: too few or too many fields, bad weight, overflow; the
+    //              error names the line
+    //   write: empty graph, isolated vertex, round trip, label with a tab
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static Path file(String text) throws IOException {
+        File file = File.createTempFile("edges", ".tsv");
+        file.deleteOnExit();
+        return Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static Graph<String> read(String text, GraphBuilder.Duplicates duplicates, int chunkBytes)
+            throws IOException {
+        Graph<String> graph = new AdaptiveAdjacencyGraph<>();
+        EdgeListIO.read(file(text), Function.identity(), graph, duplicates, chunkBytes);
+        return graph;
+    }
+    
+    @Test
+    public void testReadEmpty() throws IOException {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        assertEquals(0, EdgeListIO.read(file(""), graph, GraphBuilder.Duplicates.SUM));
+        assertTrue(graph.vertices().isEmpty());
+    }
+    
+    @Test
+    public void testReadOneLineWithoutNewline() throws IOException {
+        Graph<String> graph = read("a\tb\t3", GraphBuilder.Duplicates.SUM, 1024);
+        assertEquals(Map.of("b", 3), graph.targets("a"));
+    }
+    
+    @Test
+    public void testReadAcrossChunks() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            text.append("v").append(i).append("\tv").append(i + 1).append('\t').append(i % 5 + 1).append('\n');
+        }
+        Graph<String> graph = read(text.toString(), GraphBuilder.Duplicates.SUM, 37);
+        assertEquals(1_001, graph.vertices().size());
+        assertEquals(Map.of("v500", 5), graph.targets("v499"));
+        assertEquals(Map.of("v998", 4), graph.sources("v999"));
+    }
+    
+    @Test
+    public void testReadLineLongerThanChunk() throws IOException {
+        String longLabel = "x".repeat(200);
+        Graph<String> graph = read("a\tb\t1\n" + longLabel + "\tc\t2\nc\td\t3\n", GraphBuilder.Duplicates.SUM, 8);
+        assertEquals(Map.of("c", 2), graph.targets(longLabel));
+        assertEquals(Map.of("d", 3), graph.targets("c"));
+    }
+    
+    @Test
+    public void testReadLongLinesAfterBuffersReused() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            String label = i % 50 == 49 ? "y".repeat(100 + i) : "v" + i;
+            text.append(label).append("\tw\t").append(i + 1).append('\n');
+        }
+        Graph<String> graph = read(text.toString(), GraphBuilder.Duplicates.SUM, 16);
+        assertEquals(201, graph.vertices().size());
+        assertEquals(Map.of("w", 50), graph.targets("y".repeat(149)));
+        assertEquals(Map.of("w", 200), graph.targets("y".repeat(299)));
+        assertEquals(Map.of("w", 199), graph.targets("v198"));
+    }
+    
+    @Test
+    public void testReadCrlfBlankLinesAndUnicode() throws IOException {
+        Graph<String> graph = read("\u00e9t\u00e9\tb\t1\r\n\r\n\nb\ta\t2\r\n", GraphBuilder.Duplicates.SUM, 5);
+        assertEquals(Set.of("\u00e9t\u00e9", "a", "b"), graph.vertices());
+        assertEquals(Map.of("b", 1), graph.targets("\u00e9t\u00e9"));
+        assertEquals(Map.of("a", 2), graph.targets("b"));
+    }
+    
+    @Test
+    public void testReadDuplicatesAcrossChunks() throws IOException {
+        String text = "a\tb\t1\na\tb\t2\na\tb\t4\n";
+        assertEquals(Map.of("b", 7), read(text, GraphBuilder.Duplicates.SUM, 6).targets("a"));
+        assertEquals(Map.of("b", 4), read(text, GraphBuilder.Duplicates.OVERWRITE, 6).targets("a"));
+        assertEquals(Map.of("b", 4), read(text, GraphBuilder.Duplicates.OVERWRITE, 1024).targets("a"));
+    }
+    
+    @Test
+    public void testReadOntoExistingEdges() throws IOException {
+        Graph<String> graph = new ConcreteVerticesGraph();
+        graph.set("a", "b", 5);
+        assertEquals(1, EdgeListIO.read(file("a\tb\t1\n"), graph, GraphBuilder.Duplicates.SUM));
+        assertEquals(Map.of("b", 6), graph.targets("a"));
+    }
+    
+    @Test
+    public void testReadNonStringLabels() throws IOException {
+        Graph<Integer> graph = new CompressedGraph<>();
+        EdgeListIO.read(file("1\t2\t3\n2\t1\t4\n"), Integer::valueOf, graph, GraphBuilder.Duplicates.SUM);
+        assertEquals(Map.of(2, 3), graph.targets(1));
+        assertEquals(Map.of(1, 4), graph.targets(2));
+    }
+    
+    // asserts that reading text fails, naming the given line
+    private static void assertMalformed(String text, int line) {
+        try {
+            read(text, GraphBuilder.Duplicates.SUM, 7);
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(":" + line + ": "));
+        }
+    }
+    
+    @Test
+    public void testReadMalformed() {
+        assertMalformed("a\tb\n", 1);
+        assertMalformed("a\tb\t1\nc\td\t1\ne\tf\t1\tg\n", 3);
+        assertMalformed("a\tb\t1\n\na\tb\t-1\n", 3);
+        assertMalformed("a\tb\t1\na\tb\t\n", 2);
+        assertMalformed("a\tb\t4294967296\n", 1);
+    }
+    
+    @Test
+    public void testWriteEmptyAndIsolated() throws IOException {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.add("alone");
+        Path file = file("stale");
+        assertEquals(0, EdgeListIO.write(graph, file));
+        assertEquals("", Files.readString(file));
+    }
+    
+    @Test
+    public void testWriteRoundTrip() throws IOException {
+        Graph<String> graph = new ConcreteVerticesGraph();
+        for (int i = 0; i < 300; i++) {
+            graph.set("s" + i % 17, "t" + i, i + 1);
+        }
+        Path file = file("");
+        assertEquals(300, EdgeListIO.write(graph, file));
+        assertEquals(300, Files.readAllLines(file).size());
+        
+        Graph<String> copy = new AdaptiveAdjacencyGraph<>();
+        assertEquals(300, EdgeListIO.read(file, Function.identity(), copy, GraphBuilder.Duplicates.SUM, 64));
+        for (String vertex : graph.vertices()) {
+            assertEquals(graph.targets(vertex), copy.targets(vertex));
+        }
+        assertEquals(graph.vertices(), copy.vertices());
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testWriteRejectsTabInLabel() throws IOException {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("a\tb", "c", 1);
+        EdgeListIO.write(graph, file(""));
+    }
+}
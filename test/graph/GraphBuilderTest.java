@@ -0,0 +1,120 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+/**
+ * Tests for GraphBuilder.
+ */
+public class GraphBuilderTest {
+    
+    // Testing strategy
+    //   input: add(), stream, arrays; empty, one triple, repeated triples
+    //   duplicates: SUM, OVERWRITE; within the batch, against existing edges
+    //   weight: 0 for a new edge, 0 for an existing edge, > 0
+    //   graph: ConcreteEdgesGraph, ConcreteVerticesGraph, PartitionedGraph,
+    //          a graph that is not BulkLoadable
+    //   size hints: 0, smaller than the input
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // a Graph that only offers the Graph operations
+    private static Graph<String> plainGraph() {
+        Graph<String> backend = new ConcreteEdgesGraph();
+        return new Graph<String>() {
+            @Override public boolean add(String vertex) { return backend.add(vertex); }
+            @Override public int set(String source, String target, int weight) { return backend.set(source, target, weight); }
+            @Override public boolean remove(String vertex) { return backend.remove(vertex); }
+            @Override public Set<String> vertices() { return backend.vertices(); }
+            @Override public Map<String, Integer> sources(String target) { return backend.sources(target); }
+            @Override public Map<String, Integer> targets(String source) { return backend.targets(source); }
+        };
+    }
+    
+    private static List<Graph<String>> graphs() {
+        return List.of(
+                new ConcreteEdgesGraph(),
+                new ConcreteVerticesGraph(),
+                new PartitionedGraph<String>(3, ConcreteEdgesGraph::new),
+                plainGraph());
+    }
+    
+    @Test
+    public void testEmptyBuilder() {
+        for (Graph<String> graph : graphs()) {
+            new GraphBuilder<String>(GraphBuilder.Duplicates.SUM).buildInto(graph);
+            assertTrue(graph.vertices().isEmpty());
+        }
+    }
+    
+    @Test
+    public void testSumDuplicates() {
+        GraphBuilder<String> builder = new GraphBuilder<String>(GraphBuilder.Duplicates.SUM, 0, 0)
+                .add("a", "b", 1).add("b", "c", 2).add("a", "b", 3).add("a", "c", 1);
+        for (Graph<String> graph : graphs()) {
+            graph.set("a", "c", 5);
+            builder.buildInto(graph);
+            assertEquals(Set.of("a", "b", "c"), graph.vertices());
+            assertEquals(Map.of("b", 4, "c", 6), graph.targets("a"));
+            assertEquals(Map.of("a", 6, "b", 2), graph.sources("c"));
+        }
+    }
+    
+    @Test
+    public void testOverwriteDuplicates() {
+        GraphBuilder<String> builder = new GraphBuilder<String>(GraphBuilder.Duplicates.OVERWRITE)
+                .addAll(Stream.of(
+                        new WeightedEdge<>("a", "b", 1),
+                        new WeightedEdge<>("a", "b", 7),
+                        new WeightedEdge<>("a", "c", 1)));
+        for (Graph<String> graph : graphs()) {
+            graph.set("a", "c", 5);
+            builder.buildInto(graph);
+            assertEquals(Map.of("b", 7, "c", 1), graph.targets("a"));
+        }
+    }
+    
+    @Test
+    public void testZeroWeights() {
+        GraphBuilder<String> builder = new GraphBuilder<String>(GraphBuilder.Duplicates.OVERWRITE)
+                .addAll(new String[] {"a", "x"}, new String[] {"b", "y"}, new int[] {0, 0});
+        for (Graph<String> graph : graphs()) {
+            graph.set("a", "b", 2);
+            builder.buildInto(graph);
+            assertTrue("expected edge removed", graph.targets("a").isEmpty());
+            assertFalse("expected no vertices for a new zero edge", graph.vertices().contains("x"));
+        }
+    }
+    
+    @Test
+    public void testGrowsPastSizeHint() {
+        GraphBuilder<Integer> builder = new GraphBuilder<>(GraphBuilder.Duplicates.SUM, 1, 1);
+        for (int i = 0; i < 100; i++) {
+            builder.add(i % 10, i, 1);
+        }
+        assertEquals(100, builder.size());
+        Map<Integer, Map<Integer, Integer>> adjacency = builder.group();
+        assertEquals(10, adjacency.size());
+        assertEquals(10, adjacency.get(3).size());
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeWeight() {
+        new GraphBuilder<String>(GraphBuilder.Duplicates.SUM).add("a", "b", -1);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testMismatchedArrays() {
+        new GraphBuilder<String>(GraphBuilder.Duplicates.SUM)
+                .addAll(new String[] {"a"}, new String[] {"b"}, new int[] {1, 2});
+    }
+}
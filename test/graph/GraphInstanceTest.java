@@ -6,6 +6,7 @@ package graph;
 import static org.junit.Assert.*;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -145,4 +146,29 @@ public abstract class GraphInstanceTest {
         assertTrue("Expected targets to be empty for non-existent vertex", graph.targets("A").isEmpty());
     }
     
+    // Testing strategy for BulkRemovable.removeAll(), run only against
+    // implementations of BulkRemovable
+    //   labels: none present, some present, all present
+    //   removed vertices: with edges in both directions, between each other
+    
+    @Test
+    public void testRemoveAllIfBulkRemovable() {
+        Graph<String> graph = emptyInstance();
+        if (!(graph instanceof BulkRemovable)) return;
+        BulkRemovable<String> bulk = (BulkRemovable<String>) graph;
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 2);
+        graph.set("c", "a", 3);
+        graph.set("c", "d", 4);
+        assertFalse(bulk.removeAll(List.of("x")));
+        assertEquals(Set.of("a", "b", "c", "d"), graph.vertices());
+        assertTrue(bulk.removeAll(List.of("a", "b", "x")));
+        assertEquals(Set.of("c", "d"), graph.vertices());
+        assertEquals(Map.of("d", 4), graph.targets("c"));
+        assertTrue(graph.sources("c").isEmpty());
+        assertTrue(graph.targets("a").isEmpty());
+        assertTrue(bulk.removeAll(Set.of("c", "d")));
+        assertTrue(graph.vertices().isEmpty());
+    }
+    
 }
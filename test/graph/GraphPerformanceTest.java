@@ -0,0 +1,201 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+/**
+ * Performance contract tests for instance methods of Graph: how much each
+ * operation allocates, counted by the JVM per thread, and a coarse check that
+ * building a graph by set() grows linearly rather than quadratically.
+ * 
+ * <p>Each backend has a subclass providing emptyInstance(), as for
+ * GraphInstanceTest, and may override the budgets its design calls for.
+ * The finer timing contracts are in {@link GraphScalingBenchmark}, which
+ * runs every subclass and is run separately.
+ */
+public abstract class GraphPerformanceTest {
+    
+    // Testing strategy
+    //   allocation (bytes per operation, averaged over many operations):
+    //     add of an existing vertex, set overwriting an existing edge,
+    //     targets of a vertex with two edges
+    //   scaling: building by set, 16 graphs of n edges vs one of 16n edges
+    
+    /** Number of edges in each graph measured for allocation. */
+    static final int EDGES = 2_000;
+    
+    /** Number of operations run to warm up before allocation is measured. */
+    private static final int ALLOCATION_WARMUP = 100_000;
+    
+    /** Number of operations whose allocation is averaged. */
+    private static final int ALLOCATION_OPS = 20_000;
+    
+    /** Number of edges in the smaller graph built for the scaling check. */
+    private static final int SCALING_EDGES = 5_000;
+    
+    /** Timed runs per size, after as many warm-up runs; the fastest counts. */
+    private static final int SCALING_RUNS = 3;
+    
+    /**
+     * Overridden by implementation-specific test classes.
+     * 
+     * @return a new empty graph of the particular implementation being tested
+     */
+    public abstract Graph<String> emptyInstance();
+    
+    /**
+     * @return bytes that set() may allocate when it changes the weight of an
+     *         existing edge
+     */
+    protected long setAllocationBudget() {
+        return 512;
+    }
+    
+    /**
+     * @return bytes that targets() may allocate for a vertex with two edges
+     */
+    protected long targetsAllocationBudget() {
+        return 512;
+    }
+    
+    /**
+     * @return bytes that add() may allocate for a vertex already in the graph
+     */
+    protected long addAllocationBudget() {
+        return 96;
+    }
+    
+    /**
+     * @return false if the backend only indexes edges by source, so that
+     *         sources() of a vertex costs time linear in the graph's size;
+     *         read by GraphScalingBenchmark
+     */
+    protected boolean indexesSources() {
+        return true;
+    }
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // labels v0, v1, ... created up front, so that measurements exclude them
+    static String[] labels(int count) {
+        String[] labels = new String[count];
+        for (int i = 0; i < count; i++) {
+            labels[i] = "v" + i;
+        }
+        return labels;
+    }
+    
+    // builds a graph of `edges` edges, two from each vertex: v -> v+1, v -> v+2
+    Graph<String> build(String[] labels, int edges) {
+        Graph<String> graph = emptyInstance();
+        for (int i = 0; i < edges / 2; i++) {
+            graph.set(labels[i], labels[i + 1], 1);
+            graph.set(labels[i], labels[i + 2], 1);
+        }
+        return graph;
+    }
+    
+    // average bytes allocated by the current thread per run of action, after
+    // a fixed warm-up so that the JIT's escape analysis applies, or -1 if this
+    // JVM cannot count them
+    private static long allocatedPerOp(Runnable action) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) return -1;
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) return -1;
+        
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < ALLOCATION_WARMUP; i++) {
+            action.run();
+        }
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ALLOCATION_OPS; i++) {
+            action.run();
+        }
+        return (threads.getThreadAllocatedBytes(thread) - before) / ALLOCATION_OPS;
+    }
+    
+    private static void assertWithinBudget(String operation, long allocated, long budget) {
+        if (allocated < 0) return; // nothing to measure on this JVM
+        assertTrue(operation + ": " + allocated + " bytes per call (allowed " + budget + ")", allocated <= budget);
+    }
+    
+    @Test
+    public void testAddExistingAllocation() {
+        String[] labels = labels(EDGES / 2 + 2);
+        Graph<String> graph = build(labels, EDGES);
+        int[] next = { 0 };
+        long allocated = allocatedPerOp(() -> graph.add(labels[next[0]++ % (EDGES / 2)]));
+        assertWithinBudget("add of an existing vertex", allocated, addAllocationBudget());
+    }
+    
+    @Test
+    public void testSetOverwriteAllocation() {
+        String[] labels = labels(EDGES / 2 + 2);
+        Graph<String> graph = build(labels, EDGES);
+        int[] next = { 0 };
+        long allocated = allocatedPerOp(() -> {
+            int i = next[0]++;
+            graph.set(labels[i % (EDGES / 2)], labels[i % (EDGES / 2) + 1], 2 + i % 2);
+        });
+        assertWithinBudget("set overwriting an edge", allocated, setAllocationBudget());
+    }
+    
+    @Test
+    public void testTargetsAllocation() {
+        String[] labels = labels(EDGES / 2 + 2);
+        Graph<String> graph = build(labels, EDGES);
+        int[] next = { 0 };
+        long allocated = allocatedPerOp(() -> graph.targets(labels[next[0]++ % (EDGES / 2)]));
+        assertWithinBudget("targets", allocated, targetsAllocationBudget());
+    }
+    
+    // Times small and large alternately, `runs` times each after as many
+    // warm-up runs, so that a JIT compilation or GC pause cannot favour one;
+    // asserts that the fastest large run is at most `ratio` times the fastest
+    // small run.
+    static void assertScales(String operation, Runnable small, Runnable large, double ratio, int runs) {
+        long bestSmall = Long.MAX_VALUE;
+        long bestLarge = Long.MAX_VALUE;
+        for (int run = -runs; run < runs; run++) {
+            long smallTime = time(small);
+            long largeTime = time(large);
+            if (run >= 0) {
+                bestSmall = Math.min(bestSmall, smallTime);
+                bestLarge = Math.min(bestLarge, largeTime);
+            }
+        }
+        double measured = (double) bestLarge / Math.max(bestSmall, 1);
+        assertTrue(String.format("%s: %.1fx as slow on the larger graph (allowed %.1fx)",
+                operation, measured, ratio), measured <= ratio);
+    }
+    
+    // times one run of action, after collecting the garbage of earlier runs
+    // so that their collection is not charged to it
+    private static long time(Runnable action) {
+        System.gc();
+        long start = System.nanoTime();
+        action.run();
+        return System.nanoTime() - start;
+    }
+    
+    // Building one graph of 16n edges does the same number of sets, and
+    // allocates about as much, as building 16 graphs of n edges: linear
+    // building takes about as long (up to 3 times, missing cache more often)
+    // and quadratic 16 times as long.
+    @Test
+    public void testSetScalesLinearly() {
+        String[] labels = labels(16 * SCALING_EDGES / 2 + 2);
+        assertScales("building by set", () -> {
+            for (int i = 0; i < 16; i++) {
+                build(labels, SCALING_EDGES);
+            }
+        }, () -> build(labels, 16 * SCALING_EDGES), 8, SCALING_RUNS);
+    }
+}
@@ -0,0 +1,156 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Timing contracts for instance methods of Graph: how the cost of each
+ * operation grows with the size of the graph, for every backend with a
+ * {@link GraphPerformanceTest} subclass.
+ * 
+ * <p>These compare wall-clock times, so they are slow and need a quiet
+ * machine: under contention the ratios are noise. They are therefore not part
+ * of the default test run (the class name does not end in Test), which keeps
+ * only the coarse check in {@link GraphPerformanceTest}. Run them on their
+ * own, in Eclipse with Run As &gt; JUnit Test, or from the compiled classes:
+ * {@code java -ea -cp bin:junit.jar:hamcrest-core.jar org.junit.runner.JUnitCore graph.GraphScalingBenchmark}
+ * 
+ * <p>Times are the best of several runs after warming up, so that a JIT
+ * compilation or GC pause in one run does not decide the outcome.
+ */
+public class GraphScalingBenchmark {
+    
+    // Testing strategy
+    //   backends: every GraphPerformanceTest subclass
+    //   scaling (sizes n and 16n edges, i.e. four doublings):
+    //     building by set, overwriting every edge with set, targets and
+    //     sources of the same low-degree vertices in both graphs
+    
+    /** Number of edges in the smaller graph. */
+    private static final int EDGES = 2_000;
+    
+    /** How many times as many edges the larger graph has. */
+    private static final int SCALE = 16;
+    
+    /** Number of queries timed on each graph. */
+    private static final int QUERIES = 20_000;
+    
+    /**
+     * Number of vertices queried, the same in both graphs, so that the data
+     * touched by the queries fits in cache equally well at either size.
+     */
+    private static final int QUERIED = 500;
+    
+    /** Timed runs per measurement, after as many warm-up runs; the fastest counts. */
+    private static final int RUNS = 7;
+    
+    /**
+     * Largest allowed time ratio for work proportional to size when the size
+     * grows SCALE times: linear work takes about 16 times as long, quadratic
+     * 256. The margin above linear is for the larger graph missing cache, and
+     * collecting garbage, more often per operation.
+     */
+    private static final double LINEAR_RATIO = 128;
+    
+    /**
+     * Largest allowed time ratio for a fixed number of queries when the size
+     * grows SCALE times: work independent of size takes about as long, linear
+     * 16 times as long.
+     */
+    private static final double CONSTANT_RATIO = 6;
+    
+    private static final List<GraphPerformanceTest> BACKENDS = List.of(
+            new ConcreteEdgesGraphPerformanceTest(),
+            new ConcreteVerticesGraphPerformanceTest(),
+            new AdaptiveAdjacencyGraphPerformanceTest(),
+            new CompressedGraphPerformanceTest(),
+            new PartitionedGraphPerformanceTest(),
+            new VersionedGraphPerformanceTest(),
+            new TombstoneGraphPerformanceTest(),
+            new DecayingGraphPerformanceTest());
+    
+    // the backend a performance test class runs against
+    private static String name(GraphPerformanceTest backend) {
+        return backend.emptyInstance().getClass().getSimpleName();
+    }
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // asserts as GraphPerformanceTest.assertScales, with RUNS runs
+    private static void assertScales(String operation, Runnable small, Runnable large, double ratio) {
+        GraphPerformanceTest.assertScales(operation + " at " + SCALE + "x size", small, large, ratio, RUNS);
+    }
+    
+    @Test
+    public void testSetScalesLinearly() {
+        String[] labels = GraphPerformanceTest.labels(SCALE * EDGES / 2 + 2);
+        for (GraphPerformanceTest backend : BACKENDS) {
+            assertScales(name(backend) + " building by set", () -> backend.build(labels, EDGES),
+                    () -> backend.build(labels, SCALE * EDGES), LINEAR_RATIO);
+        }
+    }
+    
+    @Test
+    public void testOverwriteScalesLinearly() {
+        String[] labels = GraphPerformanceTest.labels(SCALE * EDGES / 2 + 2);
+        for (GraphPerformanceTest backend : BACKENDS) {
+            Graph<String> smallGraph = backend.build(labels, EDGES);
+            Graph<String> largeGraph = backend.build(labels, SCALE * EDGES);
+            int[] weight = { 1 };
+            assertScales(name(backend) + " overwriting by set",
+                    () -> overwrite(smallGraph, labels, EDGES, ++weight[0]),
+                    () -> overwrite(largeGraph, labels, SCALE * EDGES, ++weight[0]), LINEAR_RATIO);
+        }
+    }
+    
+    private static void overwrite(Graph<String> graph, String[] labels, int edges, int weight) {
+        for (int i = 0; i < edges / 2; i++) {
+            graph.set(labels[i], labels[i + 1], weight);
+            graph.set(labels[i], labels[i + 2], weight);
+        }
+    }
+    
+    // runs `queries` targets (or sources) queries of the vertices v2 ..
+    // v(QUERIED+1), each of which has two sources and two targets
+    private static Runnable queries(Graph<String> graph, String[] labels, int queries, boolean targets) {
+        return () -> {
+            int found = 0;
+            for (int q = 0; q < queries; q++) {
+                String vertex = labels[(int) ((q * 7919L) % QUERIED) + 2];
+                found += (targets ? graph.targets(vertex) : graph.sources(vertex)).size();
+            }
+            assertTrue(found > 0);
+        };
+    }
+    
+    @Test
+    public void testTargetsCostIndependentOfSize() {
+        String[] labels = GraphPerformanceTest.labels(SCALE * EDGES / 2 + 2);
+        for (GraphPerformanceTest backend : BACKENDS) {
+            Graph<String> smallGraph = backend.build(labels, EDGES);
+            Graph<String> largeGraph = backend.build(labels, SCALE * EDGES);
+            assertScales(name(backend) + " targets", queries(smallGraph, labels, QUERIES, true),
+                    queries(largeGraph, labels, QUERIES, true), CONSTANT_RATIO);
+        }
+    }
+    
+    @Test
+    public void testSourcesCostIndependentOfSize() {
+        String[] labels = GraphPerformanceTest.labels(SCALE * EDGES / 2 + 2);
+        for (GraphPerformanceTest backend : BACKENDS) {
+            Graph<String> smallGraph = backend.build(labels, EDGES);
+            Graph<String> largeGraph = backend.build(labels, SCALE * EDGES);
+            // a scan of every vertex per query needs far fewer queries to time
+            int count = backend.indexesSources() ? QUERIES : QUERIES / 100;
+            assertScales(name(backend) + " sources", queries(smallGraph, labels, count, false),
+                    queries(largeGraph, labels, count, false),
+                    backend.indexesSources() ? CONSTANT_RATIO : LINEAR_RATIO);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for OverlayGraph.
+ */
+public class OverlayGraphTest {
+    
+    // Testing strategy
+    //   layers: one, several; overlapping and disjoint edges and vertices
+    //   blend weights: default 1, fractional, 0 (layer hidden), changed after
+    //                  queries; sums rounding to 0 (edge absent)
+    //   sources, targets: single-key lookup, iteration, size and isEmpty with
+    //                     keys shared by several layers, absent vertex
+    //   underlying layers: changed after the overlay is created
+    //   mutators: add, set, remove all throw; bad weights rejected
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static Graph<String> layer(String source, String target, int weight) {
+        Graph<String> graph = new AdaptiveAdjacencyGraph<>();
+        graph.set(source, target, weight);
+        return graph;
+    }
+    
+    @Test
+    public void testSingleLayerMatchesLayer() {
+        Graph<String> only = layer("a", "b", 3);
+        only.add("c");
+        OverlayGraph<String> overlay = new OverlayGraph<>(List.of(only));
+        assertEquals(Set.of("a", "b", "c"), overlay.vertices());
+        assertEquals(Map.of("b", 3), overlay.targets("a"));
+        assertEquals(Map.of("a", 3), overlay.sources("b"));
+        assertEquals(Map.of(), overlay.targets("c"));
+        assertEquals(Map.of(), overlay.targets("missing"));
+    }
+    
+    @Test
+    public void testWeightedSum() {
+        Graph<String> first = layer("a", "b", 2);
+        first.set("a", "c", 1);
+        Graph<String> second = layer("a", "b", 4);
+        OverlayGraph<String> overlay = new OverlayGraph<>(List.of(first, second), 1.5, 0.5);
+        assertEquals(2, overlay.layerCount());
+        assertEquals(0.5, overlay.getWeight(1), 0);
+        assertEquals(Integer.valueOf(5), overlay.targets("a").get("b"));
+        assertEquals(Map.of("b", 5, "c", 2), overlay.targets("a"));
+        assertEquals(Map.of("a", 5), overlay.sources("b"));
+    }
+    
+    @Test
+    public void testRowIteratesSharedKeysOnce() {
+        Graph<String> first = layer("a", "b", 2);
+        first.set("a", "c", 1);
+        Graph<String> second = layer("a", "b", 4);
+        second.set("a", "d", 2);
+        Graph<String> third = layer("a", "d", 1);
+        third.set("a", "e", 1);
+        OverlayGraph<String> overlay = new OverlayGraph<>(List.of(first, second, third), 1, 1, 0.25);
+        Map<String, Integer> targets = overlay.targets("a");
+        assertFalse(targets.isEmpty());
+        assertEquals(3, targets.size()); // e rounds to 0
+        int visited = 0;
+        for (String key : targets.keySet()) {
+            assertTrue(Set.of("b", "c", "d").contains(key));
+            visited++;
+        }
+        assertEquals(3, visited);
+        assertEquals(Map.of("b", 6, "c", 1, "d", 2), targets);
+    }
+    
+    @Test
+    public void testWeightRoundingToZeroHidesEdge() {
+        OverlayGraph<String> overlay = new OverlayGraph<>(List.of(layer("a", "b", 1)), 0.25);
+        assertTrue(overlay.targets("a").isEmpty());
+        assertFalse(overlay.targets("a").containsKey("b"));
+        assertEquals(Set.of("a", "b"), overlay.vertices());
+    }
+    
+    @Test
+    public void testSetWeightReblends() {
+        Graph<String> first = layer("a", "b", 1);
+        Graph<String> second = layer("a", "c", 1);
+        OverlayGraph<String> overlay = new OverlayGraph<>(List.of(first, second));
+        Map<String, Integer> before = overlay.targets("a");
+        overlay.setWeight(0, 0);
+        assertEquals(Map.of("c", 1), overlay.targets("a"));
+        overlay.setWeight(1, 10);
+        assertEquals(Map.of("c", 10), overlay.targets("a"));
+        assertEquals("earlier results keep their weights", Map.of("b", 1, "c", 1), before);
+    }
+    
+    @Test
+    public void testReflectsLayerChanges() {
+        Graph<String> first = layer("a", "b", 1);
+        OverlayGraph<String> overlay = new OverlayGraph<>(List.of(first, layer("x", "y", 1)));
+        first.set("a", "b", 7);
+        first.add("z");
+        assertEquals(Map.of("b", 7), overlay.targets("a"));
+        assertTrue(overlay.vertices().contains("z"));
+    }
+    
+    @Test
+    public void testMutatorsThrow() {
+        OverlayGraph<String> overlay = new OverlayGraph<>(List.of(layer("a", "b", 1)));
+        try {
+            overlay.add("c");
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) { }
+        try {
+            overlay.set("a", "b", 2);
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) { }
+        try {
+            overlay.remove("a");
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) { }
+        try {
+            overlay.targets("a").put("c", 1);
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) { }
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeWeightRejected() {
+        new OverlayGraph<>(List.of(layer("a", "b", 1))).setWeight(0, -1);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testWrongWeightCountRejected() {
+        new OverlayGraph<>(List.of(layer("a", "b", 1)), 1, 2);
+    }
+}
@@ -0,0 +1,16 @@
+package graph;
+
+/**
+ * Runs the GraphPerformanceTest contracts against PartitionedGraph.
+ */
+public class PartitionedGraphPerformanceTest extends GraphPerformanceTest {
+    
+    @Override public Graph<String> emptyInstance() {
+        return new PartitionedGraph<>(4, ConcreteEdgesGraph::new);
+    }
+    
+    // the backend's set, plus the calls to the shards of source and target
+    @Override protected long setAllocationBudget() {
+        return 1024;
+    }
+}
@@ -0,0 +1,152 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+/**
+ * Tests for PartitionedGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against PartitionedGraph, as
+ * well as tests for that particular implementation.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class PartitionedGraphTest extends GraphInstanceTest {
+    
+    /*
+     * Provide a PartitionedGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new PartitionedGraph<>(4, ConcreteVerticesGraph::new);
+    }
+    
+    /*
+     * Testing PartitionedGraph...
+     */
+    
+    // Testing strategy for PartitionedGraph
+    //   shard count: 1, > 1
+    //   edge: source and target in the same shard, in different shards
+    //   remove: vertex with edges stored in other shards
+    //   sources(), removeAll(): number of transport calls
+    //   removeAll(): backends with and without BulkRemovable
+    
+    /*
+     * A transport that counts the calls made through it.
+     */
+    private static class CountingTransport implements ShardTransport<String> {
+        private final ShardTransport<String> delegate;
+        private int calls = 0;
+        
+        CountingTransport(ShardTransport<String> delegate) {
+            this.delegate = delegate;
+        }
+        
+        @Override public int shardCount() {
+            return delegate.shardCount();
+        }
+        
+        @Override public <R> R call(int shard, Function<Graph<String>, R> operation) {
+            calls++;
+            return delegate.call(shard, operation);
+        }
+    }
+    
+    @Test
+    public void testSingleShard() {
+        Graph<String> graph = new PartitionedGraph<>(1, ConcreteEdgesGraph::new);
+        graph.set("a", "b", 2);
+        assertEquals(Set.of("a", "b"), graph.vertices());
+        assertEquals(Map.of("b", 2), graph.targets("a"));
+    }
+    
+    @Test
+    public void testEdgesAcrossShards() {
+        PartitionedGraph<String> graph = new PartitionedGraph<>(8, ConcreteEdgesGraph::new);
+        for (int i = 0; i < 20; i++) {
+            graph.set("w" + i, "w" + (i + 1), i + 1);
+        }
+        assertEquals(21, graph.vertices().size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(Map.of("w" + (i + 1), i + 1), graph.targets("w" + i));
+            assertEquals(Map.of("w" + i, i + 1), graph.sources("w" + (i + 1)));
+        }
+    }
+    
+    @Test
+    public void testRemoveVertexWithEdgesInOtherShards() {
+        PartitionedGraph<String> graph = new PartitionedGraph<>(8, ConcreteVerticesGraph::new);
+        for (int i = 0; i < 10; i++) {
+            graph.set("w" + i, "hub", 1);
+            graph.set("hub", "w" + i, 1);
+        }
+        assertTrue(graph.remove("hub"));
+        assertFalse(graph.vertices().contains("hub"));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(graph.targets("w" + i).isEmpty());
+            assertTrue(graph.sources("w" + i).isEmpty());
+        }
+        assertTrue(graph.sources("hub").isEmpty());
+    }
+    
+    @Test
+    public void testZeroWeightDoesNotAddVertices() {
+        Graph<String> graph = new PartitionedGraph<>(4, ConcreteEdgesGraph::new);
+        assertEquals(0, graph.set("a", "b", 0));
+        assertTrue(graph.vertices().isEmpty());
+    }
+    
+    @Test
+    public void testSourcesCallsEachShardOnce() {
+        CountingTransport transport = new CountingTransport(
+                new LocalShardTransport<>(5, ConcreteEdgesGraph::new));
+        Graph<String> graph = new PartitionedGraph<>(transport);
+        for (int i = 0; i < 50; i++) {
+            graph.set("w" + i, "end", 1);
+        }
+        transport.calls = 0;
+        assertEquals(50, graph.sources("end").size());
+        assertEquals(5, transport.calls);
+        
+        transport.calls = 0;
+        graph.targets("w3");
+        assertEquals(1, transport.calls);
+    }
+    
+    @Test
+    public void testRemoveAllCallsEachShardOnce() {
+        CountingTransport transport = new CountingTransport(
+                new LocalShardTransport<>(4, ConcreteVerticesGraph::new));
+        PartitionedGraph<String> graph = new PartitionedGraph<>(transport);
+        for (int i = 0; i < 20; i++) {
+            graph.set("w" + i, "w" + (i + 1), 1);
+        }
+        transport.calls = 0;
+        assertFalse(graph.removeAll(List.of("x", "y")));
+        assertTrue(graph.removeAll(List.of("w0", "w5", "w10", "x")));
+        assertEquals(8, transport.calls);
+        assertEquals(18, graph.vertices().size());
+        assertTrue(graph.sources("w6").isEmpty());
+        assertTrue(graph.targets("w4").isEmpty());
+    }
+    
+    @Test
+    public void testRemoveAllWithoutBulkBackend() {
+        PartitionedGraph<String> graph = new PartitionedGraph<>(3, AdaptiveAdjacencyGraph::new);
+        for (int i = 0; i < 20; i++) {
+            graph.set("w" + i, "w" + (i + 1), 1);
+        }
+        assertFalse(graph.removeAll(List.of("x", "y")));
+        assertTrue(graph.removeAll(List.of("w0", "w5", "x")));
+        assertEquals(19, graph.vertices().size());
+        assertTrue(graph.sources("w6").isEmpty());
+        assertTrue(graph.targets("w4").isEmpty());
+        assertEquals(Map.of("w7", 1), graph.targets("w6"));
+    }
+}
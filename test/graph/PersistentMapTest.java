@@ -0,0 +1,85 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for PersistentMap.
+ */
+public class PersistentMapTest {
+    
+    // Testing strategy
+    //   size: 0, 1, many (deep tries)
+    //   keys: distinct hashes, equal hashes ("Aa" and "BB" collide)
+    //   put: new key, existing key with same value, with new value
+    //   remove: absent key, present key, last key, key in a collision
+    //   old versions: unchanged after put and remove
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testEmpty() {
+        PersistentMap<String, Integer> map = PersistentMap.empty();
+        assertEquals(0, map.size());
+        assertNull(map.get("a"));
+        assertSame(map, map.remove("a"));
+    }
+    
+    @Test
+    public void testPutKeepsOldVersion() {
+        PersistentMap<String, Integer> v0 = PersistentMap.empty();
+        PersistentMap<String, Integer> v1 = v0.put("a", 1);
+        PersistentMap<String, Integer> v2 = v1.put("a", 2);
+        assertSame(v2, v2.put("a", 2));
+        assertEquals(0, v0.size());
+        assertEquals((Integer) 1, v1.get("a"));
+        assertEquals((Integer) 2, v2.get("a"));
+        assertEquals(1, v2.size());
+    }
+    
+    @Test
+    public void testCollidingKeys() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty()
+                .put("Aa", 1).put("BB", 2).put("C", 3);
+        assertEquals(3, map.size());
+        assertEquals((Integer) 1, map.get("Aa"));
+        assertEquals((Integer) 2, map.get("BB"));
+        PersistentMap<String, Integer> removed = map.remove("Aa");
+        assertNull(removed.get("Aa"));
+        assertEquals((Integer) 2, removed.get("BB"));
+        assertEquals((Integer) 1, map.get("Aa"));
+        assertEquals(2, removed.size());
+    }
+    
+    @Test
+    public void testMatchesHashMap() {
+        Random random = new Random(6005);
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentMap<Integer, Integer> map = PersistentMap.empty();
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, i);
+                map = map.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, map.toMap());
+        for (Integer key : expected.keySet()) {
+            map = map.remove(key);
+        }
+        assertEquals(0, map.size());
+    }
+}
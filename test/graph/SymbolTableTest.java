@@ -0,0 +1,153 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+/**
+ * Tests for SymbolTable.
+ */
+public class SymbolTableTest {
+    
+    // Testing strategy
+    //   intern: new string, equal but distinct instance, non-String label
+    //   fold: lower case, mixed case
+    //   id, lookup: same string, different strings, unknown id
+    //   lookup(String): interned string, unknown string (table unchanged)
+    //   threads: many threads interning equal strings at once
+    //   reclaimed: a symbol nobody holds is eventually dropped, and its ID
+    //              is reused
+    //   backends: labels stored by a graph are the canonical instances
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testInternReturnsOneInstance() {
+        String first = new String("symbol-intern");
+        String second = new String("symbol-intern");
+        assertSame(first, SymbolTable.intern(first));
+        assertSame(first, SymbolTable.intern(second));
+    }
+    
+    @Test
+    public void testInternNonString() {
+        Integer label = 1234567;
+        assertSame(label, SymbolTable.intern(label));
+    }
+    
+    @Test
+    public void testFold() {
+        String lower = SymbolTable.fold("symbol-fold");
+        assertEquals("symbol-fold", lower);
+        assertSame(lower, SymbolTable.fold("Symbol-FOLD"));
+        assertSame(lower, SymbolTable.intern(new String("symbol-fold")));
+    }
+    
+    @Test
+    public void testIdAndLookup() {
+        String a = SymbolTable.intern("symbol-a");
+        String b = SymbolTable.intern("symbol-b");
+        int id = SymbolTable.id(a);
+        assertEquals(id, SymbolTable.id(new String("symbol-a")));
+        assertTrue(id != SymbolTable.id(b));
+        assertSame(a, SymbolTable.lookup(id));
+        assertNull(SymbolTable.lookup(-1));
+    }
+    
+    @Test
+    public void testConcurrentIntern() throws InterruptedException {
+        int threads = 8;
+        List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1000; i++) {
+                    String name = new String("symbol-race-" + i);
+                    String canonical = SymbolTable.intern(name);
+                    if (i == 0) {
+                        seen.add(canonical);
+                        ids.add(SymbolTable.id(canonical));
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(threads, seen.size());
+        for (String canonical : seen) {
+            assertSame(seen.get(0), canonical);
+        }
+        assertEquals(1, ids.size());
+    }
+    
+    @Test
+    public void testUnusedSymbolReclaimed() throws InterruptedException {
+        int id = SymbolTable.id(new String("symbol-garbage"));
+        for (int i = 0; i < 100 && SymbolTable.lookup(id) != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(SymbolTable.lookup(id));
+    }
+    
+    @Test
+    public void testLookupStringFindsCanonical() {
+        String canonical = SymbolTable.intern(new String("symbol-lookup"));
+        assertSame(canonical, SymbolTable.lookup(new String("symbol-lookup")));
+    }
+    
+    @Test
+    public void testLookupStringNeverInterns() {
+        int size = SymbolTable.size();
+        assertNull(SymbolTable.lookup("symbol-never-interned"));
+        assertNull(SymbolTable.lookup("symbol-never-interned"));
+        assertTrue("expected no new symbol", SymbolTable.size() <= size);
+    }
+    
+    @Test
+    public void testReclaimedIdReused() throws InterruptedException {
+        int id = SymbolTable.id(new String("symbol-garbage-reused"));
+        for (int i = 0; i < 100 && SymbolTable.lookup(id) != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(SymbolTable.lookup(id));
+        SymbolTable.size(); // drops the reclaimed symbol, freeing its ID
+        int issued = SymbolTable.issuedIds();
+        String fresh = SymbolTable.intern(new String("symbol-fresh"));
+        assertEquals("expected a freed ID", issued, SymbolTable.issuedIds());
+        assertSame(fresh, SymbolTable.lookup(SymbolTable.id(fresh)));
+    }
+    
+    @Test
+    public void testBackendsStoreCanonicalLabels() {
+        String canonical = SymbolTable.intern("symbol-vertex");
+        List<Graph<String>> graphs = List.of(new ConcreteEdgesGraph(), new ConcreteVerticesGraph(),
+                new AdaptiveAdjacencyGraph<>(), new CompressedGraph<>(), new VersionedGraph<>());
+        for (Graph<String> graph : graphs) {
+            graph.set(new String("symbol-vertex"), new String("symbol-vertex"), 1);
+            assertSame(graph.getClass().getSimpleName(), canonical, graph.vertices().iterator().next());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package graph;
+
+/**
+ * Runs the GraphPerformanceTest contracts against TombstoneGraph.
+ */
+public class TombstoneGraphPerformanceTest extends GraphPerformanceTest {
+    
+    @Override public Graph<String> emptyInstance() {
+        return new TombstoneGraph<>(new ConcreteEdgesGraph());
+    }
+}
@@ -0,0 +1,113 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for TombstoneGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against TombstoneGraph, as
+ * well as tests for that particular implementation.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class TombstoneGraphTest extends GraphInstanceTest {
+    
+    /*
+     * Provide a TombstoneGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new TombstoneGraph<>(new ConcreteEdgesGraph());
+    }
+    
+    /*
+     * Testing TombstoneGraph...
+     */
+    
+    // Testing strategy for TombstoneGraph
+    //   wrapped graph: empty, non-empty, BulkRemovable, not BulkRemovable
+    //   removed vertex: observed before and after compaction, re-added,
+    //                   used in set() with zero and nonzero weight
+    //   compaction: all at once, incremental, through compactor()
+    //   removeAll: none, some, all labels present
+    
+    private static TombstoneGraph<String> star() {
+        TombstoneGraph<String> graph = new TombstoneGraph<>(new ConcreteVerticesGraph());
+        for (int i = 0; i < 10; i++) {
+            graph.set("hub", "w" + i, i + 1);
+            graph.set("w" + i, "hub", i + 1);
+        }
+        return graph;
+    }
+    
+    @Test
+    public void testRemovedVertexIsFiltered() {
+        TombstoneGraph<String> graph = star();
+        assertTrue(graph.remove("w3"));
+        assertFalse(graph.remove("w3"));
+        assertEquals(1, graph.pending());
+        assertFalse(graph.vertices().contains("w3"));
+        assertFalse(graph.targets("hub").containsKey("w3"));
+        assertFalse(graph.sources("hub").containsKey("w3"));
+        assertTrue(graph.targets("w3").isEmpty());
+        assertEquals(0, graph.set("w3", "hub", 0));
+    }
+    
+    @Test
+    public void testReaddedVertexStartsEmpty() {
+        TombstoneGraph<String> graph = star();
+        graph.remove("hub");
+        assertTrue(graph.add("hub"));
+        assertTrue(graph.targets("hub").isEmpty());
+        assertTrue(graph.sources("w1").isEmpty());
+        
+        graph.remove("w1");
+        assertEquals(0, graph.set("w1", "w2", 7));
+        assertEquals(Map.of("w2", 7), graph.targets("w1"));
+        assertEquals(0, graph.pending());
+    }
+    
+    @Test
+    public void testRemoveAllAndCompact() {
+        TombstoneGraph<String> graph = star();
+        assertFalse(graph.removeAll(List.of("x", "y")));
+        assertTrue(graph.removeAll(List.of("w0", "w1", "w2", "x")));
+        assertEquals(3, graph.pending());
+        assertEquals(8, graph.vertices().size());
+        graph.compact();
+        assertEquals(0, graph.pending());
+        assertEquals(7, graph.targets("hub").size());
+    }
+    
+    @Test
+    public void testIncrementalCompaction() {
+        Graph<String> plain = new AdaptiveAdjacencyGraph<>();
+        TombstoneGraph<String> graph = new TombstoneGraph<>(plain);
+        for (int i = 0; i < 10; i++) {
+            graph.set("hub", "w" + i, 1);
+        }
+        graph.removeAll(Set.of("w0", "w1", "w2", "w3", "w4"));
+        assertEquals(3, graph.compact(2));
+        Runnable compactor = graph.compactor(2);
+        compactor.run();
+        compactor.run();
+        assertEquals(0, graph.pending());
+        assertEquals(6, plain.vertices().size());
+        assertEquals(5, graph.targets("hub").size());
+    }
+    
+    @Test
+    public void testWrapsNonEmptyGraph() {
+        Graph<String> backend = new ConcreteEdgesGraph();
+        backend.set("a", "b", 1);
+        TombstoneGraph<String> graph = new TombstoneGraph<>(backend);
+        assertEquals(Set.of("a", "b"), graph.vertices());
+        assertTrue(graph.remove("a"));
+        assertTrue(graph.sources("b").isEmpty());
+    }
+}
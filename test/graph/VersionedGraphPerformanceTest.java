@@ -0,0 +1,11 @@
+package graph;
+
+/**
+ * Runs the GraphPerformanceTest contracts against VersionedGraph.
+ */
+public class VersionedGraphPerformanceTest extends GraphPerformanceTest {
+    
+    @Override public Graph<String> emptyInstance() {
+        return new VersionedGraph<>();
+    }
+}
@@ -0,0 +1,118 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests for VersionedGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against VersionedGraph, as
+ * well as tests for that particular implementation.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class VersionedGraphTest extends GraphInstanceTest {
+    
+    /*
+     * Provide a VersionedGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new VersionedGraph<>();
+    }
+    
+    /*
+     * Testing VersionedGraph...
+     */
+    
+    // Testing strategy for VersionedGraph
+    //   constructor: empty, copy of another graph
+    //   snapshot(): before and after set, remove, update; no-op changes
+    //   update(): batch of several changes, empty batch
+    //   concurrency: reader snapshots during a writer's updates
+    
+    @Test
+    public void testCopyConstructor() {
+        Graph<String> initial = new ConcreteEdgesGraph();
+        initial.set("a", "b", 2);
+        initial.add("c");
+        VersionedGraph<String> graph = new VersionedGraph<>(initial);
+        assertEquals(0, graph.snapshot().version());
+        assertEquals(Set.of("a", "b", "c"), graph.vertices());
+        assertEquals(Map.of("a", 2), graph.sources("b"));
+    }
+    
+    @Test
+    public void testSnapshotUnaffectedByLaterWrites() {
+        VersionedGraph<String> graph = new VersionedGraph<>();
+        graph.set("a", "b", 1);
+        GraphSnapshot<String> before = graph.snapshot();
+        graph.set("a", "b", 5);
+        graph.remove("b");
+        assertEquals(Map.of("b", 1), before.targets("a"));
+        assertEquals(Set.of("a", "b"), before.vertices());
+        assertTrue(graph.targets("a").isEmpty());
+        assertTrue(graph.snapshot().version() > before.version());
+    }
+    
+    @Test
+    public void testNoOpDoesNotPublish() {
+        VersionedGraph<String> graph = new VersionedGraph<>();
+        graph.add("a");
+        GraphSnapshot<String> before = graph.snapshot();
+        graph.add("a");
+        graph.set("a", "b", 0);
+        graph.update(draft -> { });
+        assertSame(before, graph.snapshot());
+    }
+    
+    @Test
+    public void testUpdatePublishesOneVersion() {
+        VersionedGraph<String> graph = new VersionedGraph<>();
+        long version = graph.snapshot().version();
+        graph.update(draft -> {
+            draft.set("a", "b", 1);
+            draft.set("b", "c", 2);
+            draft.set("c", "a", 3);
+            draft.remove("c");
+        });
+        assertEquals(version + 1, graph.snapshot().version());
+        assertEquals(Set.of("a", "b"), graph.vertices());
+        assertTrue(graph.sources("a").isEmpty());
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testSnapshotImmutable() {
+        new VersionedGraph<String>().snapshot().add("a");
+    }
+    
+    @Test
+    public void testReadersSeeConsistentVersions() throws InterruptedException {
+        // the writer keeps a -> b and b -> a at equal weights within each version
+        VersionedGraph<String> graph = new VersionedGraph<>();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= 2_000; i++) {
+                final int weight = i;
+                graph.update(draft -> {
+                    draft.set("a", "b", weight);
+                    draft.set("b", "a", weight);
+                });
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            GraphSnapshot<String> snapshot = graph.snapshot();
+            if (!snapshot.targets("a").equals(snapshot.sources("a"))) {
+                failure.set(snapshot.toString());
+            }
+        }
+        writer.join();
+        assertNull(failure.get());
+        assertEquals(Map.of("b", 2_000), graph.targets("a"));
+    }
+}
@@ -0,0 +1,104 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import graph.ConcreteEdgesGraph;
+import graph.Graph;
+
+/**
+ * Tests for ApproximateBigramCounter.
+ */
+public class ApproximateBigramCounterTest {
+    
+    // Testing strategy
+    //   stream: empty, one word, small (exact), far more pairs than maxEdges,
+    //           words whose String.hashCode values collide
+    //   limits: maxEdgesPerVertex exceeded, maxEdges exceeded
+    //   withMemoryBudget: footprint within budget, budget too small
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static Graph<String> flush(ApproximateBigramCounter counter) {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        counter.flushTo(graph);
+        return graph;
+    }
+    
+    @Test
+    public void testEmptyAndOneWord() {
+        assertTrue(flush(new ApproximateBigramCounter(0.01, 0.01, 10, 10)).vertices().isEmpty());
+        ApproximateBigramCounter counter = new ApproximateBigramCounter(0.01, 0.01, 10, 10);
+        counter.add("alone");
+        assertEquals(Set.of("alone"), flush(counter).vertices());
+    }
+    
+    @Test
+    public void testSmallStreamIsExact() {
+        ApproximateBigramCounter counter = new ApproximateBigramCounter(0.001, 0.01, 100, 100);
+        for (String word : "a b a b a c".split(" ")) {
+            counter.add(word);
+        }
+        Graph<String> graph = flush(counter);
+        assertEquals(Map.of("b", 2, "c", 1), graph.targets("a"));
+        assertEquals(Map.of("a", 2), graph.targets("b"));
+    }
+    
+    @Test
+    public void testCollidingWordsCountedApart() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        ApproximateBigramCounter counter = new ApproximateBigramCounter(0.001, 0.01, 100, 100);
+        for (String word : "Aa c Aa c Aa c BB c".split(" ")) {
+            counter.add(word);
+        }
+        Graph<String> graph = flush(counter);
+        assertEquals(Map.of("c", 3), graph.targets("Aa"));
+        assertEquals(Map.of("c", 1), graph.targets("BB"));
+        assertTrue(ApproximateBigramCounter.pairKey("Aa", "c") != ApproximateBigramCounter.pairKey("BB", "c"));
+        assertTrue(ApproximateBigramCounter.pairKey("ab", "c") != ApproximateBigramCounter.pairKey("a", "bc"));
+    }
+    
+    @Test
+    public void testPerVertexLimitKeepsHeaviest() {
+        ApproximateBigramCounter counter = new ApproximateBigramCounter(0.001, 0.01, 100, 2);
+        String[] followers = {"x", "y", "y", "z", "z", "z"};
+        for (String follower : followers) {
+            counter.add("hub");
+            counter.add(follower);
+        }
+        assertEquals(Set.of("y", "z"), flush(counter).targets("hub").keySet());
+    }
+    
+    @Test
+    public void testEdgeLimitKeepsHeavyHitters() {
+        ApproximateBigramCounter counter = new ApproximateBigramCounter(0.001, 0.01, 50, 50);
+        for (int i = 0; i < 10_000; i++) {
+            counter.add("the");
+            counter.add("end");
+            counter.add("w" + i);
+        }
+        assertTrue(counter.edgeCount() <= 50);
+        Graph<String> graph = flush(counter);
+        assertTrue("expected heavy edge kept", graph.targets("the").getOrDefault("end", 0) >= 10_000);
+    }
+    
+    @Test
+    public void testMemoryBudget() {
+        long budget = 1 << 20;
+        ApproximateBigramCounter counter = ApproximateBigramCounter.withMemoryBudget(budget, 0.01, 8);
+        assertTrue(counter.footprint() <= budget);
+        assertTrue(counter.footprint() > budget / 2);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testMemoryBudgetTooSmall() {
+        ApproximateBigramCounter.withMemoryBudget(1024, 0.01, 8);
+    }
+}
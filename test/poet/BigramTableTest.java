@@ -0,0 +1,56 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import graph.ConcreteEdgesGraph;
+import graph.Graph;
+
+/**
+ * Tests for BigramTable.
+ */
+public class BigramTableTest {
+    
+    // Testing strategy
+    //   words fed: none, one, repeated pairs, a word followed by itself
+    //   flushTo: empty graph, graph with existing edges
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testNoWords() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        new BigramTable(0).flushTo(graph);
+        assertTrue(graph.vertices().isEmpty());
+    }
+    
+    @Test
+    public void testOneWord() {
+        BigramTable table = new BigramTable(0);
+        table.add("alone");
+        Graph<String> graph = new ConcreteEdgesGraph();
+        table.flushTo(graph);
+        assertEquals(Set.of("alone"), graph.vertices());
+    }
+    
+    @Test
+    public void testCountsPairs() {
+        BigramTable table = new BigramTable(1);
+        for (String word : "hello, hello, hello, goodbye! hello,".split(" ")) {
+            table.add(word);
+        }
+        assertEquals(3, table.size());
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("hello,", "goodbye!", 4);
+        table.flushTo(graph);
+        assertEquals(Map.of("hello,", 2, "goodbye!", 5), graph.targets("hello,"));
+        assertEquals(Map.of("hello,", 1), graph.targets("goodbye!"));
+    }
+}
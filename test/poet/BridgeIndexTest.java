@@ -0,0 +1,135 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import graph.ConcreteEdgesGraph;
+import graph.Graph;
+
+/**
+ * Tests for BridgeIndex.
+ */
+public class BridgeIndexTest {
+    
+    // Testing strategy
+    //   words: absent, no targets, no sources
+    //   bridges: none, one, several with ties
+    //   list sizes: similar (merge), skewed either way (gallop)
+    //   lowerBound: key before, inside, after the range; duplicates
+    //   as a Graph: observers match the indexed graph, mutators throw
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // the bridge by definition: scan every vertex
+    private static String bruteForce(Graph<String> graph, String w1, String w2) {
+        String best = null;
+        long bestWeight = 0;
+        for (Map.Entry<String, Integer> edge : graph.targets(w1).entrySet()) {
+            Integer second = graph.targets(edge.getKey()).get(w2);
+            if (second == null) continue;
+            long weight = (long) edge.getValue() + second;
+            if (weight > bestWeight || (weight == bestWeight && edge.getKey().compareTo(best) < 0)) {
+                best = edge.getKey();
+                bestWeight = weight;
+            }
+        }
+        return best;
+    }
+    
+    @Test
+    public void testAbsentAndIsolatedWords() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("a", "b", 1);
+        graph.add("c");
+        BridgeIndex index = new BridgeIndex(graph);
+        assertNull(index.bridge("x", "b"));
+        assertNull(index.bridge("c", "b"));
+        assertNull(index.bridge("a", "c"));
+    }
+    
+    @Test
+    public void testTieGoesToSmallestWord() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        for (String middle : new String[] {"q", "m", "z"}) {
+            graph.set("a", middle, 1);
+            graph.set(middle, "b", 1);
+        }
+        assertEquals("m", new BridgeIndex(graph).bridge("a", "b"));
+    }
+    
+    @Test
+    public void testMatchesBruteForceOnSkewedGraph() {
+        Random random = new Random(6005);
+        Graph<String> graph = new ConcreteEdgesGraph();
+        // "hub" links to and from most words; the rest are sparse
+        for (int i = 0; i < 300; i++) {
+            graph.set("hub", "w" + i, 1 + random.nextInt(5));
+            graph.set("w" + i, "hub", 1 + random.nextInt(5));
+            for (int j = 0; j < 3; j++) {
+                graph.set("w" + i, "w" + random.nextInt(300), 1 + random.nextInt(5));
+            }
+        }
+        BridgeIndex index = new BridgeIndex(graph);
+        for (String w1 : graph.vertices()) {
+            for (String w2 : new String[] {"hub", "w7", "w42", "w299"}) {
+                assertEquals(w1 + " " + w2, bruteForce(graph, w1, w2), index.bridge(w1, w2));
+                assertEquals(w2 + " " + w1, bruteForce(graph, w2, w1), index.bridge(w2, w1));
+            }
+        }
+    }
+    
+    @Test
+    public void testReadOnlyGraphOfIndexedEdges() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("a", "b", 2);
+        graph.set("a", "c", 3);
+        graph.set("c", "b", 1);
+        graph.add("d");
+        BridgeIndex index = new BridgeIndex(graph);
+        assertEquals(graph.vertices(), index.vertices());
+        for (String vertex : List.of("a", "b", "c", "d", "x")) {
+            assertEquals(graph.targets(vertex), index.targets(vertex));
+            assertEquals(graph.sources(vertex), index.sources(vertex));
+        }
+        index.targets("a").clear();
+        assertEquals(Map.of("b", 2, "c", 3), index.targets("a"));
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testSetUnsupported() {
+        new BridgeIndex(new ConcreteEdgesGraph()).set("a", "b", 1);
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testRemoveUnsupported() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.add("a");
+        new BridgeIndex(graph).remove("a");
+    }
+    
+    @Test
+    public void testLowerBound() {
+        int[] sorted = {1, 3, 3, 5, 8, 13, 21, 34, 55, 89};
+        assertEquals(0, BridgeIndex.lowerBound(sorted, 0, sorted.length, 0));
+        assertEquals(1, BridgeIndex.lowerBound(sorted, 0, sorted.length, 3));
+        assertEquals(3, BridgeIndex.lowerBound(sorted, 2, sorted.length, 4));
+        assertEquals(9, BridgeIndex.lowerBound(sorted, 0, sorted.length, 89));
+        assertEquals(10, BridgeIndex.lowerBound(sorted, 0, sorted.length, 100));
+        assertEquals(5, BridgeIndex.lowerBound(sorted, 0, 5, 100));
+        for (int key = 0; key < 100; key++) {
+            for (int from = 0; from < sorted.length; from++) {
+                int expected = from;
+                while (expected < sorted.length && sorted[expected] < key) expected++;
+                assertEquals(expected, BridgeIndex.lowerBound(sorted, from, sorted.length, key));
+            }
+        }
+    }
+}
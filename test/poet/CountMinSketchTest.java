@@ -0,0 +1,58 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for CountMinSketch.
+ */
+public class CountMinSketchTest {
+    
+    // Testing strategy
+    //   keys: never added, added once, added many times
+    //   load: few keys (exact), many more keys than counters (error bound)
+    //   forError: valid bounds, bounds outside (0, 1)
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testFewKeysExact() {
+        CountMinSketch sketch = CountMinSketch.forError(0.001, 0.01);
+        assertEquals(0, sketch.estimate(42));
+        for (int i = 0; i < 10; i++) {
+            sketch.add(42);
+        }
+        assertEquals(1, sketch.add(7));
+        assertEquals(10, sketch.estimate(42));
+        assertEquals(1, sketch.estimate(7));
+    }
+    
+    @Test
+    public void testNeverUnderestimatesAndStaysWithinBound() {
+        double epsilon = 0.01;
+        CountMinSketch sketch = CountMinSketch.forError(epsilon, 0.001);
+        int total = 0;
+        for (long key = 0; key < 20_000; key++) {
+            int count = (int) (key % 5) + 1;
+            for (int i = 0; i < count; i++) {
+                sketch.add(key * 0x1234567L);
+                total++;
+            }
+        }
+        for (long key = 0; key < 20_000; key++) {
+            int estimate = sketch.estimate(key * 0x1234567L);
+            int count = (int) (key % 5) + 1;
+            assertTrue("expected no underestimate", estimate >= count);
+            assertTrue("expected error within bound", estimate <= count + epsilon * total);
+        }
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testBadErrorBound() {
+        CountMinSketch.forError(1.5, 0.1);
+    }
+}
@@ -5,21 +5,165 @@ package poet;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
 import org.junit.Test;
 
+import graph.ConcreteEdgesGraph;
+import graph.Graph;
+import graph.OverlayGraph;
+import graph.PartitionedGraph;
+import graph.SymbolTable;
+import graph.VersionedGraph;
+
 /**
  * Tests for GraphPoet.
  */
 public class GraphPoetTest {
     
     // Testing strategy
-    //   TODO
+    //   corpus: one line, several lines, words differing only in case
+    //   input: empty, one word, pairs with zero, one, several bridge candidates,
+    //          words not in the corpus (not interned)
+    //   counting: exact, approximate
+    //   order: 2, 3 (trigram seen, decided by the preceding word, fallback), 4
+    //   graph: default, caller-supplied (PartitionedGraph, VersionedGraph updated
+    //          after construction), existing view (OverlayGraph re-weighted
+    //          after construction), indexed
+    
+    private static final File MUGAR = new File("src/poet/mugar-omni-theater.txt");
     
     @Test(expected=AssertionError.class)
     public void testAssertionsEnabled() {
         assert false; // make sure assertions are enabled with VM argument: -ea
     }
     
-    // TODO tests
+    // writes a temporary corpus file
+    private static File corpus(String text) throws IOException {
+        File file = File.createTempFile("corpus", ".txt");
+        file.deleteOnExit();
+        java.nio.file.Files.writeString(file.toPath(), text);
+        return file;
+    }
+    
+    @Test
+    public void testPoemFromSpecExample() throws IOException {
+        GraphPoet poet = new GraphPoet(MUGAR);
+        assertEquals("Test of the system.", poet.poem("Test the system."));
+    }
+    
+    @Test
+    public void testPoemEmptyAndSingleWord() throws IOException {
+        GraphPoet poet = new GraphPoet(MUGAR);
+        assertEquals("", poet.poem(""));
+        assertEquals("Test", poet.poem("  Test \n"));
+    }
+    
+    @Test
+    public void testPoemNoBridge() throws IOException {
+        GraphPoet poet = new GraphPoet(corpus("a b c"));
+        assertEquals("b a", poet.poem("b   a"));
+        assertEquals("x y", poet.poem("x  y"));
+    }
+    
+    @Test
+    public void testPoemDoesNotInternInput() throws IOException {
+        GraphPoet poet = new GraphPoet(corpus("a b c"));
+        assertEquals("A Poem-Only-Word", poet.poem("A Poem-Only-Word"));
+        assertNull(SymbolTable.lookup("poem-only-word"));
+    }
+    
+    @Test
+    public void testPoemCaseInsensitiveCorpusAcrossLines() throws IOException {
+        GraphPoet poet = new GraphPoet(corpus("Hello, HELLO,\nhello, goodbye!"));
+        assertEquals("HELLO, hello, Goodbye!", poet.poem("HELLO, Goodbye!"));
+    }
+    
+    @Test
+    public void testPoemPicksHeaviestBridge() throws IOException {
+        GraphPoet poet = new GraphPoet(corpus("a x b a y b a y b a z b a z b a z b"));
+        assertEquals("a z b", poet.poem("a b"));
+    }
+    
+    @Test
+    public void testIndexedPoetWritesSamePoems() throws IOException {
+        File corpus = corpus("a x b a y b a y b a z b a z b a z b Hello, HELLO,\nhello, goodbye!");
+        GraphPoet indexed = GraphPoet.indexed(corpus);
+        GraphPoet plain = new GraphPoet(corpus);
+        for (String input : List.of("", "a", "a b", "b a", "HELLO, Goodbye!", "x a b y")) {
+            assertEquals(plain.poem(input), indexed.poem(input));
+        }
+        assertEquals("Test of the system.", GraphPoet.indexed(MUGAR).poem("Test the system."));
+    }
+    
+    @Test
+    public void testPoemOnPartitionedGraph() throws IOException {
+        GraphPoet poet = new GraphPoet(MUGAR, new PartitionedGraph<>(3, ConcreteEdgesGraph::new));
+        assertEquals("Test of the system.", poet.poem("Test the system."));
+    }
+    
+    @Test
+    public void testPoemOnVersionedGraph() throws IOException {
+        VersionedGraph<String> graph = new VersionedGraph<>();
+        GraphPoet poet = new GraphPoet(MUGAR, graph);
+        assertEquals("Test of the system.", poet.poem("Test the system."));
+        graph.set("test", "our", 5);
+        graph.set("our", "system.", 5);
+        assertEquals("Test our system.", poet.poem("Test system."));
+    }
+    
+    @Test
+    public void testPoemWithApproximateCounts() throws IOException {
+        ApproximateBigramCounter counter = new ApproximateBigramCounter(0.01, 0.01, 1_000, 4);
+        GraphPoet poet = new GraphPoet(MUGAR, new ConcreteEdgesGraph(), counter);
+        assertEquals("Test of the system.", poet.poem("Test the system."));
+    }
+    
+    @Test
+    public void testPoemWithTrigramsPrefersSeenGap() throws IOException {
+        File corpus = corpus("a x q a x r a x s z x b a y b");
+        assertEquals("A x B", new GraphPoet(corpus, new ConcreteEdgesGraph(), 2).poem("A B"));
+        assertEquals("A y B", new GraphPoet(corpus, new ConcreteEdgesGraph(), 3).poem("A B"));
+    }
+    
+    @Test
+    public void testPoemWithTrigramsUsesPrecedingWord() throws IOException {
+        File corpus = corpus("p a m b q a n b");
+        GraphPoet bigrams = new GraphPoet(corpus, new ConcreteEdgesGraph(), 2);
+        GraphPoet trigrams = new GraphPoet(corpus, new ConcreteEdgesGraph(), 3);
+        assertEquals("Q A m B", bigrams.poem("Q A B"));
+        assertEquals("Q A n B", trigrams.poem("Q A B"));
+        assertEquals("P A m B", trigrams.poem("P A B"));
+    }
+    
+    @Test
+    public void testPoemWithTrigramsFallsBackToBigrams() throws IOException {
+        GraphPoet poet = new GraphPoet(corpus("a x c d x b"), new ConcreteEdgesGraph(), 3);
+        assertEquals("A x B", poet.poem("A B"));
+        assertEquals("Test of the system.",
+                new GraphPoet(MUGAR, new ConcreteEdgesGraph(), 3).poem("Test the system."));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testPoemOrderOutOfRange() throws IOException {
+        new GraphPoet(MUGAR, new ConcreteEdgesGraph(), 4);
+    }
+    
+    @Test
+    public void testPoemOnReweightedOverlay() {
+        Graph<String> first = new ConcreteEdgesGraph();
+        first.set("a", "x", 1);
+        first.set("x", "b", 1);
+        Graph<String> second = new ConcreteEdgesGraph();
+        second.set("a", "y", 1);
+        second.set("y", "b", 1);
+        OverlayGraph<String> overlay = new OverlayGraph<>(List.of(first, second), 1, 3);
+        GraphPoet poet = new GraphPoet(overlay);
+        assertEquals("A y b", poet.poem("A b"));
+        overlay.setWeight(1, 0);
+        assertEquals("A x b", poet.poem("A b"));
+    }
     
 }
@@ -0,0 +1,78 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for LongIntHashTable.
+ */
+public class LongIntHashTableTest {
+    
+    // Testing strategy
+    //   key: absent, present; 0, large, keys colliding in the low bits
+    //   size: empty, past several resizes
+    //   increment: positive, negative delta
+    //   forEach: empty, every entry once
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testEmpty() {
+        LongIntHashTable table = new LongIntHashTable(0);
+        assertEquals(0, table.size());
+        assertEquals(0, table.get(0));
+        assertEquals(0, table.keys().length);
+        table.forEach((key, value) -> fail("no entries"));
+    }
+    
+    @Test
+    public void testIncrement() {
+        LongIntHashTable table = new LongIntHashTable(4);
+        assertEquals(1, table.increment(0, 1));
+        assertEquals(3, table.increment(0, 2));
+        assertEquals(2, table.increment(0, -1));
+        assertEquals(5, table.increment(Long.MAX_VALUE, 5));
+        assertEquals(2, table.get(0));
+        assertEquals(5, table.get(Long.MAX_VALUE));
+        assertEquals(2, table.size());
+    }
+    
+    @Test
+    public void testResizeKeepsEntries() {
+        LongIntHashTable table = new LongIntHashTable(1);
+        for (long i = 0; i < 10_000; i++) {
+            table.increment(i << 32, (int) i + 1);
+        }
+        assertEquals(10_000, table.size());
+        long[] keys = table.keys();
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals((long) i << 32, keys[i]);
+            assertEquals(i + 1, table.get(keys[i]));
+        }
+    }
+    
+    @Test
+    public void testForEachVisitsEveryEntry() {
+        LongIntHashTable table = new LongIntHashTable(1);
+        for (long i = 0; i < 100; i++) {
+            table.increment(i * 31, (int) i + 1);
+        }
+        long[] sums = new long[2];
+        table.forEach((key, value) -> {
+            assertEquals(key / 31 + 1, value);
+            sums[0] += key;
+            sums[1]++;
+        });
+        assertEquals(31 * 99 * 100 / 2, sums[0]);
+        assertEquals(100, sums[1]);
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeKey() {
+        new LongIntHashTable(1).increment(-5, 1);
+    }
+}
@@ -0,0 +1,251 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
+
+import org.junit.Test;
+
+import graph.ConcreteEdgesGraph;
+import graph.Graph;
+
+/**
+ * Tests for PoemService and PoemLoadGenerator.
+ */
+public class PoemServiceTest {
+    
+    // Testing strategy
+    //   submit: one request, many concurrent requests sharing word pairs,
+    //           one batch of requests sharing word pairs (lookups counted),
+    //           queue full (shed), deadline passing while queued (counted
+    //           before the future fails), after close
+    //   poems: subscriber requesting one at a time, all at once; empty input
+    //   load generator: bursts larger than the queue
+    
+    private static final File MUGAR = new File("src/poet/mugar-omni-theater.txt");
+    private static final Duration LONG = Duration.ofSeconds(10);
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // a poet whose bridge lookups count down started, then block until
+    // released, to hold the queue full
+    private static GraphPoet blockingPoet(CountDownLatch started, CountDownLatch release) {
+        return countingPoet(new AtomicInteger(), started, release);
+    }
+    
+    // a blocking poet as above that also counts its bridge lookups
+    private static GraphPoet countingPoet(AtomicInteger lookups, CountDownLatch started, CountDownLatch release) {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("a", "x", 1);
+        graph.set("x", "b", 1);
+        return new GraphPoet(graph) {
+            @Override
+            BinaryOperator<String> bridges() {
+                BinaryOperator<String> bridges = super.bridges();
+                return (w1, w2) -> {
+                    lookups.incrementAndGet();
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return bridges.apply(w1, w2);
+                };
+            }
+        };
+    }
+    
+    private static Throwable failure(CompletableFuture<String> future) {
+        try {
+            future.join();
+            throw new AssertionError("expected the request to fail");
+        } catch (CompletionException e) {
+            return e.getCause();
+        }
+    }
+    
+    @Test
+    public void testSubmitOne() throws IOException {
+        try (PoemService service = new PoemService(new GraphPoet(MUGAR), 16)) {
+            assertEquals("Test of the system.", service.submit("Test the system.", LONG).join());
+            assertEquals(1, service.completed());
+        }
+    }
+    
+    @Test
+    public void testSubmitManyConcurrently() throws IOException {
+        GraphPoet poet = new GraphPoet(MUGAR);
+        try (PoemService service = new PoemService(poet, 1_000, 32, 4)) {
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                futures.add(service.submit(i % 2 == 0 ? "Test the system." : "This a test", LONG));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(poet.poem(i % 2 == 0 ? "Test the system." : "This a test"), futures.get(i).join());
+            }
+            assertEquals(500, service.completed());
+        }
+    }
+    
+    @Test
+    public void testBatchLooksUpEachPairOnce() throws InterruptedException {
+        AtomicInteger lookups = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (PoemService service = new PoemService(countingPoet(lookups, started, release), 1_000, 1_000, 1)) {
+            CompletableFuture<String> blocker = service.submit("a b", LONG);
+            assertTrue("first request never ran", started.await(LONG.toMillis(), TimeUnit.MILLISECONDS));
+            // queued behind the blocker, so they all go in the next batch
+            int requests = 100;
+            int pairs = 3;
+            List<CompletableFuture<String>> batched = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                batched.add(service.submit("a b a b", LONG));
+            }
+            assertEquals(requests, service.queued());
+            release.countDown();
+            assertEquals("a x b", blocker.join());
+            for (CompletableFuture<String> future : batched) {
+                assertEquals("a x b a x b", future.join());
+            }
+            int batchLookups = lookups.get() - 1;
+            assertTrue(batchLookups + " lookups", batchLookups < requests * pairs);
+            assertEquals("one per distinct pair (a, b) and (b, a)", 2, batchLookups);
+            assertEquals(requests + 1, service.completed());
+        }
+    }
+    
+    @Test
+    public void testQueueFullSheds() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (PoemService service = new PoemService(blockingPoet(started, release), 2, 1, 1)) {
+            List<CompletableFuture<String>> accepted = new ArrayList<>();
+            accepted.add(service.submit("a b", LONG));
+            assertTrue("first request never ran", started.await(LONG.toMillis(), TimeUnit.MILLISECONDS));
+            assertEquals(0, service.queued());
+            accepted.add(service.submit("a b", LONG));
+            accepted.add(service.submit("a b", LONG));
+            // one running and two queued, so the rest are shed at once
+            for (int i = 0; i < 5; i++) {
+                assertTrue(failure(service.submit("a b", LONG)) instanceof RejectedExecutionException);
+            }
+            assertEquals(5, service.shed());
+            release.countDown();
+            for (CompletableFuture<String> future : accepted) {
+                assertEquals("a x b", future.join());
+            }
+            assertEquals(3, service.completed());
+        }
+    }
+    
+    @Test
+    public void testDeadlinePassesWhileQueued() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (PoemService service = new PoemService(blockingPoet(started, release), 8, 1, 1)) {
+            CompletableFuture<String> blocker = service.submit("a b", LONG);
+            assertTrue("first request never ran", started.await(LONG.toMillis(), TimeUnit.MILLISECONDS));
+            CompletableFuture<String> late = service.submit("a b", Duration.ofMillis(20));
+            assertTrue(failure(late) instanceof TimeoutException);
+            assertEquals("counted before the future failed", 1, service.expired());
+            release.countDown();
+            assertEquals("a x b", blocker.join());
+            assertEquals(1, service.expired());
+            assertEquals(1, service.completed());
+        }
+    }
+    
+    @Test
+    public void testSubmitAfterClose() throws IOException {
+        PoemService service = new PoemService(new GraphPoet(MUGAR), 4);
+        service.close();
+        assertTrue(failure(service.submit("Test the system.", LONG)) instanceof RejectedExecutionException);
+    }
+    
+    // collects a stream, requesting `step` poems at a time
+    private static List<String> collect(Flow.Publisher<String> publisher, long step) throws InterruptedException {
+        List<String> poems = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        publisher.subscribe(new Flow.Subscriber<String>() {
+            private Flow.Subscription subscription;
+            private long outstanding;
+            
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                outstanding = step;
+                subscription.request(step);
+            }
+            
+            @Override
+            public void onNext(String poem) {
+                poems.add(poem);
+                if (--outstanding == 0) {
+                    outstanding = step;
+                    subscription.request(step);
+                }
+            }
+            
+            @Override
+            public void onError(Throwable error) {
+                poems.add("error: " + error);
+                done.countDown();
+            }
+            
+            @Override
+            public void onComplete() {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        return poems;
+    }
+    
+    @Test
+    public void testPoemsInOrder() throws IOException, InterruptedException {
+        GraphPoet poet = new GraphPoet(MUGAR);
+        List<String> inputs = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String input = i % 3 == 0 ? "Test the system." : "This a test " + i;
+            inputs.add(input);
+            expected.add(poet.poem(input));
+        }
+        try (PoemService service = new PoemService(poet, 8)) {
+            assertEquals(expected, collect(service.poems(inputs, LONG), 1));
+            assertEquals(expected, collect(service.poems(inputs, LONG), Long.MAX_VALUE));
+            assertEquals(List.of(), collect(service.poems(List.of(), LONG), 1));
+        }
+    }
+    
+    @Test
+    public void testLoadGeneratorBurstsShed() throws IOException, InterruptedException {
+        try (PoemService service = new PoemService(new GraphPoet(MUGAR), 16, 8, 1)) {
+            PoemLoadGenerator.Report report = PoemLoadGenerator.run(service,
+                    List.of("Test the system.", "This is a test."), 2_000, 2_000, Duration.ZERO, LONG, 0);
+            assertEquals(2_000, report.completed() + report.shed() + report.timedOut());
+            assertTrue(report.completed() > 0);
+            assertTrue(report.shed() > 0);
+            assertTrue(report.latency(99).compareTo(report.latency(50)) >= 0);
+        }
+    }
+}
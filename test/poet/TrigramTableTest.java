@@ -0,0 +1,137 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for TrigramTable.
+ */
+public class TrigramTableTest {
+    
+    // Testing strategy
+    //   words fed: fewer than three, repeated trigrams, a word repeated in a
+    //              trigram, many contexts (table growth)
+    //   bridge: unknown word, gap never seen, one candidate, several (by
+    //           count, by preceding word, tie), before absent or unknown
+    //   state: add after compact, bridge before compact, compact twice
+    //   compact: rows of one middle word, rows of hundreds (searched when
+    //            conditioning on the preceding word)
+    //   vocabulary: shared with a BigramTable counting the same words
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static TrigramTable table(String corpus) {
+        TrigramTable table = new TrigramTable(1);
+        for (String word : corpus.split(" ")) {
+            table.add(word);
+        }
+        table.compact();
+        return table;
+    }
+    
+    @Test
+    public void testFewerThanThreeWords() {
+        TrigramTable table = table("a b");
+        assertEquals(0, table.size());
+        assertNull(table.bridge(null, "a", "b"));
+    }
+    
+    @Test
+    public void testCountsTrigrams() {
+        TrigramTable table = table("a a a a b a a");
+        // a a a (twice), a a b, a b a, b a a
+        assertEquals(4, table.size());
+        assertEquals("a", table.bridge(null, "a", "a"));
+        assertEquals("a", table.bridge(null, "a", "b"));
+        assertEquals("a", table.bridge(null, "b", "a"));
+        assertNull(table.bridge(null, "b", "b"));
+    }
+    
+    @Test
+    public void testBridgeUnknownOrUnseen() {
+        TrigramTable table = table("a x b");
+        assertEquals("x", table.bridge(null, "a", "b"));
+        assertNull(table.bridge(null, "a", "zzz"));
+        assertNull(table.bridge(null, "b", "a"));
+        assertEquals("x", table.bridge("unknown", "a", "b"));
+    }
+    
+    @Test
+    public void testBridgeByCount() {
+        TrigramTable table = table("a x b a y b a y b");
+        assertEquals("y", table.bridge(null, "a", "b"));
+    }
+    
+    @Test
+    public void testBridgeByPrecedingWord() {
+        TrigramTable table = table("p a m b q a n b");
+        assertEquals("m", table.bridge(null, "a", "b"));
+        assertEquals("m", table.bridge("p", "a", "b"));
+        assertEquals("n", table.bridge("q", "a", "b"));
+    }
+    
+    @Test
+    public void testManyContexts() {
+        TrigramTable table = new TrigramTable(1);
+        for (int i = 0; i < 1_000; i++) {
+            table.add("w" + i);
+            table.add("mid" + (i % 7));
+        }
+        table.compact();
+        assertEquals("mid3", table.bridge(null, "w3", "w4"));
+        // w4, w11, w18, ... each once; the tie goes to the smallest
+        assertEquals("w102", table.bridge(null, "mid3", "mid4"));
+    }
+    
+    @Test
+    public void testLongRows() {
+        TrigramTable table = new TrigramTable(1);
+        for (int j = 0; j < 300; j++) {
+            for (String word : new String[] { "p", "x" + j, "m7" }) table.add(word);
+        }
+        for (String word : new String[] { "p", "a", "m7" }) table.add(word);
+        for (int i = 0; i < 50; i++) {
+            for (String word : new String[] { "a", "m" + i, "b" }) table.add(word);
+        }
+        table.compact();
+        // m0 .. m49 once each between a and b; only "p a m7" was seen
+        assertEquals("m0", table.bridge(null, "a", "b"));
+        assertEquals("m7", table.bridge("p", "a", "b"));
+    }
+    
+    @Test(expected=IllegalStateException.class)
+    public void testAddAfterCompact() {
+        table("a b c").add("d");
+    }
+    
+    @Test(expected=IllegalStateException.class)
+    public void testBridgeBeforeCompact() {
+        new TrigramTable(1).bridge(null, "a", "b");
+    }
+    
+    @Test
+    public void testCompactTwice() {
+        TrigramTable table = table("a x b");
+        table.compact();
+        assertEquals("x", table.bridge(null, "a", "b"));
+    }
+    
+    @Test
+    public void testSharedVocabulary() {
+        Vocabulary vocabulary = new Vocabulary();
+        BigramTable bigrams = new BigramTable(1, vocabulary);
+        TrigramTable trigrams = new TrigramTable(1, vocabulary);
+        for (String word : "a x b a y b".split(" ")) {
+            bigrams.add(word);
+            trigrams.add(word);
+        }
+        trigrams.compact();
+        assertEquals(4, vocabulary.size());
+        assertEquals("x", trigrams.bridge(null, "a", "b"));
+        assertEquals(5, bigrams.size());
+    }
+}
@@ -0,0 +1,41 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for Vocabulary.
+ */
+public class VocabularyTest {
+    
+    // Testing strategy
+    //   id: new word, word seen before
+    //   find: known word, unknown word (vocabulary unchanged)
+    //   word: every ID handed out
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testIdsDenseInFirstAppearanceOrder() {
+        Vocabulary vocabulary = new Vocabulary();
+        assertEquals(0, vocabulary.id("b"));
+        assertEquals(1, vocabulary.id("a"));
+        assertEquals(0, vocabulary.id("b"));
+        assertEquals(2, vocabulary.size());
+        assertEquals("b", vocabulary.word(0));
+        assertEquals("a", vocabulary.word(1));
+    }
+    
+    @Test
+    public void testFindDoesNotAdd() {
+        Vocabulary vocabulary = new Vocabulary();
+        vocabulary.id("a");
+        assertEquals(0, vocabulary.find("a"));
+        assertEquals(-1, vocabulary.find("b"));
+        assertEquals(1, vocabulary.size());
+    }
+}